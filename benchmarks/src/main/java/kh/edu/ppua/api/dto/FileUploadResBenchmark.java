@@ -0,0 +1,91 @@
+package kh.edu.ppua.api.dto;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import kh.edu.ppua.api.model.FileEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapping {@link FileEntity} rows to {@link FileUploadRes} and writing them as JSON, as the
+ * file listing endpoints do, for a single file and for a typical page of files.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FileUploadResBenchmark {
+
+    @Param({"1", "20", "100"})
+    private int fileCount;
+
+    private ObjectMapper objectMapper;
+    private List<FileEntity> fileEntities;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Same date handling as the application's Spring Boot configured mapper
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+
+        fileEntities = new ArrayList<>(fileCount);
+        for (long id = 1; id <= fileCount; id++) {
+            String storedFileName = UUID.randomUUID() + "-exhibition-photo-" + id + ".jpg";
+            fileEntities.add(FileEntity.builder()
+                    .id(id)
+                    .originalFileName("exhibition photo " + id + ".jpg")
+                    .storedFileName(storedFileName)
+                    .fileType("image/jpeg")
+                    .fileSize(262_144L + id)
+                    .filePath("uploads/newss/gallery/" + storedFileName)
+                    .description("Annual exhibition of the Faculty of Fine Arts")
+                    .category("GALLERY")
+                    .uploadedAt(LocalDateTime.of(2025, 9, 1, 10, 15, 30))
+                    .entityId(42L)
+                    .entityType("NEWS")
+                    .build());
+        }
+    }
+
+    @Benchmark
+    public List<FileUploadRes> construct() {
+        List<FileUploadRes> responses = new ArrayList<>(fileEntities.size());
+        for (FileEntity fileEntity : fileEntities) {
+            responses.add(new FileUploadRes(fileEntity));
+        }
+        return responses;
+    }
+
+    @Benchmark
+    public byte[] constructAndSerialize() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(construct());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public byte[] constructAndSerializeConcurrent() throws JsonProcessingException {
+        return constructAndSerialize();
+    }
+}
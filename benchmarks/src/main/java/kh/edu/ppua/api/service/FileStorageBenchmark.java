@@ -0,0 +1,141 @@
+package kh.edu.ppua.api.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Upload and download hot paths of {@link FileStorageService} against a temporary directory.
+ * <p>
+ * File sizes follow what the portal stores: documents (16 KB), web images (256 KB), photos
+ * (2 MB) and scanned PDFs close to the 10 MB upload limit. The {@code Concurrent} variants
+ * run the same operation on 8 threads to show file system contention. The sharded and flat
+ * directory layouts are measured, and the pack store, which takes the files up to 64 KB.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FileStorageBenchmark {
+
+    private static final long MAX_FILE_SIZE = 10 * 1024 * 1024;
+    private static final String SUB_DIRECTORY = "benchmarks";
+    private static final String[] ALLOWED_EXTENSIONS = {"jpg", "jpeg", "png", "gif", "webp", "pdf", "doc", "docx", "txt"};
+    private static final String ORIGINAL_FILE_NAME = "Faculty of Fine Arts - Annual Exhibition 2025 (final).jpg";
+
+    @Param({"16384", "262144", "2097152", "8388608"})
+    private int fileSize;
+
+    @Param({"sharded", "flat", "packed"})
+    private String layout;
+
+    private Path uploadDirectory;
+    private PackFileStore packFileStore;
+    private FileStorageService storageService;
+    private byte[] payload;
+    private MockMultipartFile multipartFile;
+    private StoredFile storedSample;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        uploadDirectory = Files.createTempDirectory("ppua-bench");
+        packFileStore = new PackFileStore(uploadDirectory.toString(), "packed".equals(layout), 64 * 1024,
+                256 * 1024 * 1024, 0.5, new SimpleMeterRegistry());
+        storageService = new FileStorageService(uploadDirectory.toString(), new FileMetrics(new SimpleMeterRegistry()),
+                !"flat".equals(layout), packFileStore);
+
+        payload = new byte[fileSize];
+        new Random(42).nextBytes(payload);
+        multipartFile = new MockMultipartFile("file", ORIGINAL_FILE_NAME, "image/jpeg", payload);
+        storedSample = storageService.storeFile(new ByteArrayInputStream(payload), ORIGINAL_FILE_NAME,
+                SUB_DIRECTORY, MAX_FILE_SIZE);
+    }
+
+    // storeFile leaves a dead record per call in the pack store; the second run removes the compacted segments
+    @TearDown(Level.Iteration)
+    public void compactPacks() {
+        packFileStore.compact();
+        packFileStore.compact();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        packFileStore.close();
+        FileSystemUtils.deleteRecursively(uploadDirectory);
+    }
+
+    // Includes deleting the file again so the disk does not fill up during the run
+    @Benchmark
+    public StoredFile storeFile() {
+        StoredFile storedFile = storageService.storeFile(new ByteArrayInputStream(payload), ORIGINAL_FILE_NAME,
+                SUB_DIRECTORY, MAX_FILE_SIZE);
+        if (storedFile.storagePath() != null) {
+            storageService.deleteStoredPath(storedFile.storagePath());
+        } else {
+            storageService.deleteFile(storedFile.storedFileName(), SUB_DIRECTORY);
+        }
+        return storedFile;
+    }
+
+    @Benchmark
+    @Threads(8)
+    public StoredFile storeFileConcurrent() {
+        return storeFile();
+    }
+
+    @Benchmark
+    public StoredContent loadFileContent() {
+        return storedSample.storagePath() != null
+                ? storageService.loadStoredContent(storedSample.storagePath())
+                : storageService.loadFileContent(storedSample.storedFileName(), SUB_DIRECTORY);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public StoredContent loadFileContentConcurrent() {
+        return loadFileContent();
+    }
+
+    // Locating plus reading every byte, as image variant generation does
+    @Benchmark
+    public byte[] readFile() throws IOException {
+        try (InputStream inputStream = storageService.openStream(loadFileContent())) {
+            return inputStream.readAllBytes();
+        }
+    }
+
+    @Benchmark
+    public String generateUniqueFileName() {
+        return storageService.generateUniqueFileName(ORIGINAL_FILE_NAME, ".jpg");
+    }
+
+    @Benchmark
+    public MockMultipartFile validateFile() {
+        storageService.validateFile(multipartFile, MAX_FILE_SIZE, ALLOWED_EXTENSIONS);
+        return multipartFile;
+    }
+}
@@ -2,8 +2,14 @@ package kh.edu.ppua.api;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableAsync
+@EnableCaching
+@EnableScheduling
 public class PPUAApplication {
 
 	public static void main(String[] args) {
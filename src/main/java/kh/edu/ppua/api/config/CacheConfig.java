@@ -0,0 +1,36 @@
+package kh.edu.ppua.api.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class CacheConfig {
+
+    public static final String FACULTY = "faculty";
+    public static final String FACULTY_LIST = "facultyList";
+    public static final String FACULTY_PAGES = "facultyPages";
+    public static final String NEWS_RESPONSES = "newsResponses";
+    public static final String FILE_METADATA = "fileMetadata";
+    public static final String FILE_METADATA_MISSES = "fileMetadataMisses";
+
+    // In-process caches; every cache records hit/miss statistics (see /api/v1/cache/stats).
+    // Specs use Caffeine's syntax, e.g. maximumSize=1000,expireAfterWrite=10m
+    @Bean
+    public CacheManager cacheManager(@Value("${cache.faculty.spec:maximumSize=1000,expireAfterWrite=10m}") String facultySpec,
+                                     @Value("${cache.news.spec:maximumSize=500,expireAfterWrite=10m}") String newsSpec,
+                                     @Value("${cache.file-metadata.spec:maximumSize=10000,expireAfterWrite=1h}") String fileMetadataSpec,
+                                     @Value("${cache.file-metadata.misses-spec:maximumSize=10000,expireAfterWrite=30s}") String fileMetadataMissesSpec) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.registerCustomCache(FACULTY, Caffeine.from(facultySpec).recordStats().build());
+        cacheManager.registerCustomCache(FACULTY_LIST, Caffeine.from(facultySpec).recordStats().build());
+        cacheManager.registerCustomCache(FACULTY_PAGES, Caffeine.from(facultySpec).recordStats().build());
+        cacheManager.registerCustomCache(NEWS_RESPONSES, Caffeine.from(newsSpec).recordStats().build());
+        cacheManager.registerCustomCache(FILE_METADATA, Caffeine.from(fileMetadataSpec).recordStats().build());
+        cacheManager.registerCustomCache(FILE_METADATA_MISSES, Caffeine.from(fileMetadataMissesSpec).recordStats().build());
+        return cacheManager;
+    }
+}
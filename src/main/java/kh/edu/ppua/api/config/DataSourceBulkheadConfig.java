@@ -0,0 +1,58 @@
+package kh.edu.ppua.api.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Puts a {@link BulkheadDataSource} in front of the connection pool. Enabled by default together with
+ * virtual threads ({@code spring.threads.virtual.enabled}), where the number of request threads is no
+ * longer bounded by Tomcat's pool.
+ */
+@Configuration
+@ConditionalOnProperty(name = "db.bulkhead.enabled", havingValue = "true")
+public class DataSourceBulkheadConfig {
+
+    // Static so that wrapping the DataSource does not force this configuration to be created early
+    @Bean
+    public static BeanPostProcessor dataSourceBulkheadPostProcessor(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof BulkheadDataSource) {
+                    return bean;
+                }
+                // One permit per pooled connection unless configured otherwise
+                int maxConcurrent = environment.getProperty("db.bulkhead.max-concurrent", Integer.class,
+                        environment.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10));
+                Duration acquireTimeout = environment.getProperty("db.bulkhead.acquire-timeout", Duration.class,
+                        Duration.ofSeconds(10));
+                return new BulkheadDataSource(dataSource, maxConcurrent, acquireTimeout);
+            }
+        };
+    }
+
+    @Bean
+    public MeterBinder dataSourceBulkheadMetrics(DataSource dataSource) {
+        return registry -> {
+            if (dataSource instanceof BulkheadDataSource bulkhead) {
+                Gauge.builder("db.bulkhead.active", bulkhead, BulkheadDataSource::getActive)
+                        .description("Threads currently holding a database connection")
+                        .register(registry);
+                Gauge.builder("db.bulkhead.waiting", bulkhead, BulkheadDataSource::getWaiting)
+                        .description("Threads queued for a database connection")
+                        .register(registry);
+                Gauge.builder("db.bulkhead.max", bulkhead, BulkheadDataSource::getMaxConcurrent)
+                        .description("Maximum concurrent database connections allowed by the bulkhead")
+                        .register(registry);
+            }
+        };
+    }
+}
@@ -0,0 +1,42 @@
+package kh.edu.ppua.api.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class FileTaskConfig {
+
+    // Bounded pool for parallel disk work (batch uploads, background file processing).
+    // When the queue is full the submitting thread runs the task itself, which throttles producers.
+    @Bean
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public TaskExecutor fileTaskExecutor(@Value("${file.tasks.parallelism:4}") int parallelism,
+                                         @Value("${file.tasks.queue-capacity:256}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(parallelism);
+        executor.setMaxPoolSize(parallelism);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("file-task-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        return executor;
+    }
+
+    // With spring.threads.virtual.enabled every task gets its own virtual thread. The disk is still the
+    // bottleneck, so at most `parallelism` tasks run at once and submitters block until one finishes.
+    @Bean(name = "fileTaskExecutor")
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public TaskExecutor virtualFileTaskExecutor(@Value("${file.tasks.parallelism:4}") int parallelism) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("file-task-");
+        executor.setVirtualThreads(true);
+        executor.setConcurrencyLimit(parallelism);
+        return executor;
+    }
+}
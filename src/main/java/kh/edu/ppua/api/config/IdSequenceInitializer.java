@@ -0,0 +1,41 @@
+package kh.edu.ppua.api.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * News and faculty ids come from pooled sequences. Tables created while the ids were IDENTITY
+ * columns already hold rows, so on startup each sequence is moved past the highest existing id.
+ */
+@Component
+public class IdSequenceInitializer {
+
+    // sequence -> table
+    private static final Map<String, String> SEQUENCES = Map.of(
+            "tb_news_seq", "tb_news",
+            "tb_faculty_seq", "tb_faculty");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Depends on the EntityManagerFactory so that ddl-auto has created the sequences first
+    @Autowired
+    public IdSequenceInitializer(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void alignSequences() {
+        // With the pooled optimizer the next block of ids starts right after the sequence's current value
+        SEQUENCES.forEach((sequence, table) -> jdbcTemplate.query(
+                "SELECT setval('" + sequence + "', max_id) FROM (SELECT MAX(id) AS max_id FROM " + table + ") t " +
+                        "WHERE max_id > (SELECT last_value FROM " + sequence + ")",
+                (RowCallbackHandler) rs -> {
+                }));
+    }
+}
@@ -0,0 +1,42 @@
+package kh.edu.ppua.api.config;
+
+import io.micrometer.common.KeyValues;
+import io.micrometer.core.instrument.config.MeterFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.server.observation.DefaultServerRequestObservationConvention;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+@Configuration
+public class MetricsConfig {
+
+    // Entity type and category come from clients, so cap how many distinct values become time series
+    private static final int MAX_FILE_TAG_VALUES = 100;
+
+    // Adds the handling controller to http.server.requests, so latency histograms can be grouped per controller
+    @Bean
+    public DefaultServerRequestObservationConvention controllerServerRequestObservationConvention() {
+        return new DefaultServerRequestObservationConvention() {
+            @Override
+            public KeyValues getLowCardinalityKeyValues(ServerRequestObservationContext context) {
+                Object handler = context.getCarrier().getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE);
+                String controller = handler instanceof HandlerMethod handlerMethod
+                        ? handlerMethod.getBeanType().getSimpleName()
+                        : "none";
+                return super.getLowCardinalityKeyValues(context).and("controller", controller);
+            }
+        };
+    }
+
+    @Bean
+    public MeterFilter fileEntityTypeTagLimit() {
+        return MeterFilter.maximumAllowableTags("file.", "entity.type", MAX_FILE_TAG_VALUES, MeterFilter.deny());
+    }
+
+    @Bean
+    public MeterFilter fileCategoryTagLimit() {
+        return MeterFilter.maximumAllowableTags("file.", "category", MAX_FILE_TAG_VALUES, MeterFilter.deny());
+    }
+}
@@ -0,0 +1,102 @@
+package kh.edu.ppua.api.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import kh.edu.ppua.api.dto.ChunkedUploadReq;
+import kh.edu.ppua.api.dto.ChunkedUploadRes;
+import kh.edu.ppua.api.dto.FileUploadRes;
+import kh.edu.ppua.api.model.FileEntity;
+import kh.edu.ppua.api.service.ChunkedUploadService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.InputStream;
+
+@RestController
+@RequestMapping("/api/v1/files/uploads")
+@Tag(name = "Chunked Upload Controller", description = "APIs for resumable, chunked file uploads")
+public class ChunkedUploadController {
+
+    private final ChunkedUploadService chunkedUploadService;
+
+    @Autowired
+    public ChunkedUploadController(ChunkedUploadService chunkedUploadService) {
+        this.chunkedUploadService = chunkedUploadService;
+    }
+
+    @PostMapping
+    @Operation(summary = "Create an upload session",
+            description = "Start a resumable upload. The response tells the client which chunk size to use")
+    @ApiResponses({
+            @ApiResponse(responseCode = "201", description = "Upload session created"),
+            @ApiResponse(responseCode = "400", description = "Invalid file name or size")
+    })
+    public ResponseEntity<ChunkedUploadRes> createSession(@RequestBody ChunkedUploadReq uploadRequest) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(chunkedUploadService.createSession(uploadRequest));
+    }
+
+    @GetMapping("/{uploadId}")
+    @Operation(summary = "Get upload status", description = "Get the received offset and the missing chunks of an upload")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Upload session found"),
+            @ApiResponse(responseCode = "404", description = "Upload session not found or expired")
+    })
+    public ResponseEntity<ChunkedUploadRes> getStatus(
+            @Parameter(description = "Upload session ID", required = true)
+            @PathVariable String uploadId) {
+
+        return ResponseEntity.ok(chunkedUploadService.getStatus(uploadId));
+    }
+
+    @PutMapping("/{uploadId}")
+    @Operation(summary = "Upload a chunk", description = "Write the request body at the given offset. " +
+            "Chunks may be sent in any order and re-sent after a failure")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Chunk stored"),
+            @ApiResponse(responseCode = "400", description = "Invalid offset or chunk size"),
+            @ApiResponse(responseCode = "404", description = "Upload session not found or expired")
+    })
+    public ResponseEntity<ChunkedUploadRes> writeChunk(
+            @Parameter(description = "Upload session ID", required = true)
+            @PathVariable String uploadId,
+            @Parameter(description = "Byte offset of the chunk", required = true, example = "0")
+            @RequestParam long offset,
+            InputStream body) {
+
+        return ResponseEntity.ok(chunkedUploadService.writeChunk(uploadId, offset, body));
+    }
+
+    @PostMapping("/{uploadId}/complete")
+    @Operation(summary = "Complete an upload", description = "Assemble the file and create its metadata")
+    @ApiResponses({
+            @ApiResponse(responseCode = "201", description = "File uploaded successfully"),
+            @ApiResponse(responseCode = "400", description = "Upload is incomplete"),
+            @ApiResponse(responseCode = "404", description = "Upload session not found or expired")
+    })
+    public ResponseEntity<FileUploadRes> completeSession(
+            @Parameter(description = "Upload session ID", required = true)
+            @PathVariable String uploadId) {
+
+        FileEntity fileEntity = chunkedUploadService.completeSession(uploadId);
+        return ResponseEntity.status(HttpStatus.CREATED).body(new FileUploadRes(fileEntity));
+    }
+
+    @DeleteMapping("/{uploadId}")
+    @Operation(summary = "Abort an upload", description = "Discard an upload session and its chunks")
+    @ApiResponses({
+            @ApiResponse(responseCode = "204", description = "Upload session deleted"),
+            @ApiResponse(responseCode = "404", description = "Upload session not found or expired")
+    })
+    public ResponseEntity<Void> abortSession(
+            @Parameter(description = "Upload session ID", required = true)
+            @PathVariable String uploadId) {
+
+        chunkedUploadService.abortSession(uploadId);
+        return ResponseEntity.noContent().build();
+    }
+}
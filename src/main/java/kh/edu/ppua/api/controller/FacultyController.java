@@ -3,12 +3,19 @@ package kh.edu.ppua.api.controller;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import kh.edu.ppua.api.dto.BulkImportRes;
+import kh.edu.ppua.api.dto.CursorPageRes;
+import kh.edu.ppua.api.dto.FacultySuggestionRes;
+import kh.edu.ppua.api.dto.SyncRes;
 import kh.edu.ppua.api.model.FacultyEntity;
+import kh.edu.ppua.api.service.BulkImportService;
 import kh.edu.ppua.api.service.FacultyService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.util.List;
 
 @RestController
@@ -19,8 +26,15 @@ public class FacultyController {
     @Autowired
     private FacultyService service;
 
-    // Get all faculties
+    // Get faculties one page at a time
     @GetMapping
+    public CursorPageRes<FacultyEntity> getFacultyPage(@RequestParam(required = false) String cursor,
+                                                       @RequestParam(required = false) Integer size) {
+        return service.getFacultyPage(cursor, size);
+    }
+
+    // Get all faculties in a single response
+    @GetMapping(params = "unpaged=true")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Search completed"),
             @ApiResponse(responseCode = "400", description = "Missing or invalid search parameters"),
@@ -30,6 +44,19 @@ public class FacultyController {
         return service.getAllFaculties();
     }
 
+    // Faculties created, updated or deleted since a sync token; without one, all faculties and a first token
+    @GetMapping("/sync")
+    public SyncRes<FacultyEntity> syncFaculties(@RequestParam(required = false) String since) {
+        return service.syncFaculties(since);
+    }
+
+    // Suggest faculties whose name, Khmer name or email starts with the typed prefix
+    @GetMapping("/autocomplete")
+    public List<FacultySuggestionRes> autocomplete(@RequestParam("q") String prefix,
+                                                   @RequestParam(required = false) Integer limit) {
+        return service.autocomplete(prefix, limit);
+    }
+
     // Get faculty by ID
     @GetMapping("/{id}")
     public ResponseEntity<FacultyEntity> getFacultyById(@PathVariable Long id) {
@@ -44,6 +71,13 @@ public class FacultyController {
         return service.createFaculty(faculty);
     }
 
+    // Import faculty from NDJSON (one object per line) or CSV with a header row, inserted in batches
+    @PostMapping(value = "/import", consumes = {BulkImportService.NDJSON_VALUE, BulkImportService.CSV_VALUE})
+    public BulkImportRes importFaculties(@RequestParam(required = false) Integer batchSize,
+                                         HttpServletRequest request) throws IOException {
+        return service.importFaculties(request.getInputStream(), request.getContentType(), batchSize);
+    }
+
     // Update faculty
     @PutMapping("/{id}")
     public ResponseEntity<FacultyEntity> updateFaculty(@PathVariable Long id, @RequestBody FacultyEntity facultyDetails) {
@@ -6,13 +6,25 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import kh.edu.ppua.api.dto.CursorPageRes;
+import kh.edu.ppua.api.dto.FileBulkDeleteRes;
+import kh.edu.ppua.api.dto.FileLayoutMigrationRes;
 import kh.edu.ppua.api.dto.FileUploadReq;
 import kh.edu.ppua.api.dto.FileUploadRes;
+import kh.edu.ppua.api.dto.FileUploadResult;
+import kh.edu.ppua.api.exception.FileStorageException;
 import kh.edu.ppua.api.model.FileEntity;
+import kh.edu.ppua.api.service.FileDeliveryService;
+import kh.edu.ppua.api.service.FileLayoutMigrationService;
+import kh.edu.ppua.api.service.FileMetrics;
 import kh.edu.ppua.api.service.FileStorageService;
 import kh.edu.ppua.api.service.FileUploadService;
+import kh.edu.ppua.api.service.ImageDerivativeService;
+import kh.edu.ppua.api.service.StoredContent;
+import kh.edu.ppua.api.service.StreamingExportService;
+import kh.edu.ppua.api.util.MultipartStreamReader;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -21,6 +33,7 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -30,13 +43,28 @@ import java.util.stream.Collectors;
 @Tag(name = "File Controller", description = "APIs for file upload and download")
 public class FileController {
 
+    private static final int MAX_FORM_FIELD_SIZE = 4096;
+
     private final FileUploadService fileService;
     private final FileStorageService fileStorageService;
+    private final FileDeliveryService fileDeliveryService;
+    private final ImageDerivativeService imageDerivativeService;
+    private final FileMetrics fileMetrics;
+    private final FileLayoutMigrationService layoutMigrationService;
+    private final StreamingExportService exportService;
 
     @Autowired
-    public FileController(FileUploadService fileService, FileStorageService fileStorageService) {
+    public FileController(FileUploadService fileService, FileStorageService fileStorageService,
+                          FileDeliveryService fileDeliveryService, ImageDerivativeService imageDerivativeService,
+                          FileMetrics fileMetrics, FileLayoutMigrationService layoutMigrationService,
+                          StreamingExportService exportService) {
         this.fileService = fileService;
         this.fileStorageService = fileStorageService;
+        this.fileDeliveryService = fileDeliveryService;
+        this.imageDerivativeService = imageDerivativeService;
+        this.fileMetrics = fileMetrics;
+        this.layoutMigrationService = layoutMigrationService;
+        this.exportService = exportService;
     }
 
     @PostMapping(value = "/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
@@ -68,6 +96,56 @@ public class FileController {
         return ResponseEntity.status(HttpStatus.CREATED).body(new FileUploadRes(fileEntity));
     }
 
+    @PostMapping(value = "/upload-stream", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @Operation(summary = "Upload a file (streaming)",
+            description = "Upload a file with metadata, writing it to storage while it is received instead of " +
+                    "buffering it first. The description, category, entityId and entityType fields must be " +
+                    "sent before the file part")
+    @ApiResponses({
+            @ApiResponse(responseCode = "201", description = "File uploaded successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid file or data")
+    })
+    public ResponseEntity<FileUploadRes> uploadFileStream(HttpServletRequest request) throws IOException {
+        String boundary = MultipartStreamReader.extractBoundary(request.getContentType());
+        if (boundary == null) {
+            throw new FileStorageException("Missing multipart boundary in the request content type.");
+        }
+
+        MultipartStreamReader reader = new MultipartStreamReader(request.getInputStream(), boundary);
+        FileUploadReq uploadRequest = new FileUploadReq();
+        FileEntity fileEntity = null;
+
+        MultipartStreamReader.Part part;
+        while ((part = reader.nextPart()) != null) {
+            if (part.getName() == null) {
+                continue;
+            }
+            if (part.isFile()) {
+                if ("file".equals(part.getName()) && fileEntity == null) {
+                    fileEntity = fileService.uploadFile(part.getInputStream(), part.getFileName(),
+                            part.getContentType(), uploadRequest);
+                }
+                continue;
+            }
+
+            String value = part.readString(MAX_FORM_FIELD_SIZE);
+            switch (part.getName()) {
+                case "description" -> uploadRequest.setDescription(value);
+                case "category" -> uploadRequest.setCategory(value);
+                case "entityId" -> uploadRequest.setEntityId(value.isBlank() ? null : Long.valueOf(value.trim()));
+                case "entityType" -> uploadRequest.setEntityType(value);
+                default -> {
+                    // Unknown fields are ignored
+                }
+            }
+        }
+
+        if (fileEntity == null) {
+            throw new FileStorageException("No file part named 'file' was found in the request.");
+        }
+        return ResponseEntity.status(HttpStatus.CREATED).body(new FileUploadRes(fileEntity));
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "Get file metadata", description = "Get file metadata by ID")
     @ApiResponses({
@@ -83,77 +161,146 @@ public class FileController {
     }
 
     @GetMapping("/download/{storedFileName:.+}")
-    @Operation(summary = "Download a file", description = "Download a file by its stored name")
+    @Operation(summary = "Download a file", description = "Download a file by its stored name. Supports Range requests")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "File downloaded successfully"),
-            @ApiResponse(responseCode = "404", description = "File not found")
+            @ApiResponse(responseCode = "206", description = "Partial content for the requested range(s)"),
+            @ApiResponse(responseCode = "304", description = "File not modified"),
+            @ApiResponse(responseCode = "404", description = "File not found"),
+            @ApiResponse(responseCode = "416", description = "Requested range not satisfiable")
     })
-    public ResponseEntity<Resource> downloadFile(
+    public void downloadFile(
             @Parameter(description = "Stored file name", required = true, example = "a1b2c3d4-product-image.jpg")
             @PathVariable String storedFileName,
-            HttpServletRequest request) {
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
 
+        long start = System.nanoTime();
         FileEntity fileEntity = fileService.getFileByStoredName(storedFileName);
-        String subDirectory = fileService.getSubDirectory(fileEntity.getEntityType(), fileEntity.getCategory());
-
-        Resource resource = fileStorageService.loadFileAsResource(storedFileName, subDirectory);
-
-        // Determine content type
-        String contentType = null;
-        try {
-            contentType = request.getServletContext().getMimeType(resource.getFile().getAbsolutePath());
-        } catch (IOException ex) {
-            // Fallback to default content type
-            contentType = "application/octet-stream";
+        long lastModified = fileService.getLastModified(fileEntity);
+        if (fileDeliveryService.checkNotModified(fileEntity.getContentHash(), lastModified, request, response)) {
+            return;
         }
 
+        StoredContent content = fileService.loadFileContent(fileEntity);
+
+        // Determine content type (content-addressed blobs have no extension, so use the stored name)
+        String contentType = request.getServletContext().getMimeType(storedFileName);
         if (contentType == null) {
             contentType = "application/octet-stream";
         }
 
-        return ResponseEntity.ok()
-                .contentType(MediaType.parseMediaType(contentType))
-                .header(HttpHeaders.CONTENT_DISPOSITION,
-                        "attachment; filename=\"" + fileEntity.getOriginalFileName() + "\"")
-                .body(resource);
+        long bytes = fileDeliveryService.serve(content, contentType,
+                "attachment; filename=\"" + fileEntity.getOriginalFileName() + "\"",
+                fileEntity.getContentHash(), lastModified, request, response);
+        fileMetrics.recordDownload("download", fileEntity, bytes, System.nanoTime() - start);
     }
 
     @GetMapping("/view/{storedFileName:.+}")
-    @Operation(summary = "View a file", description = "View a file (inline) by its stored name")
+    @Operation(summary = "View a file", description = "View a file (inline) by its stored name. " +
+            "Images can be resized and re-encoded with width, height, fit and format. Supports Range requests")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "File displayed successfully"),
-            @ApiResponse(responseCode = "404", description = "File not found")
+            @ApiResponse(responseCode = "206", description = "Partial content for the requested range(s)"),
+            @ApiResponse(responseCode = "304", description = "File not modified"),
+            @ApiResponse(responseCode = "404", description = "File not found"),
+            @ApiResponse(responseCode = "416", description = "Requested range not satisfiable")
     })
-    public ResponseEntity<Resource> viewFile(
+    public void viewFile(
             @Parameter(description = "Stored file name", required = true, example = "a1b2c3d4-product-image.jpg")
             @PathVariable String storedFileName,
-            HttpServletRequest request) {
+            @Parameter(description = "Target width in pixels", example = "200")
+            @RequestParam(required = false) Integer width,
+            @Parameter(description = "Target height in pixels", example = "200")
+            @RequestParam(required = false) Integer height,
+            @Parameter(description = "How to fit both width and height: contain (default), cover or fill")
+            @RequestParam(required = false) String fit,
+            @Parameter(description = "Output format: jpeg or png (defaults to the source format)")
+            @RequestParam(required = false) String format,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
 
+        long start = System.nanoTime();
         FileEntity fileEntity = fileService.getFileByStoredName(storedFileName);
 
         if (!fileService.isImageFile(fileEntity)) {
-            return ResponseEntity.badRequest().body(null);
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            return;
+        }
+
+        String contentDisposition = "inline; filename=\"" + fileEntity.getOriginalFileName() + "\"";
+        long lastModified = fileService.getLastModified(fileEntity);
+
+        if (width == null && height == null && format == null) {
+            if (fileDeliveryService.checkNotModified(fileEntity.getContentHash(), lastModified, request, response)) {
+                return;
+            }
+
+            StoredContent content = fileService.loadFileContent(fileEntity);
+            long bytes = fileDeliveryService.serve(content, fileEntity.getFileType(), contentDisposition,
+                    fileEntity.getContentHash(), lastModified, request, response);
+            fileMetrics.recordDownload("view", fileEntity, bytes, System.nanoTime() - start);
+            return;
+        }
+
+        ImageDerivativeService.Variant variant = imageDerivativeService.resolveVariant(fileEntity, width, height, fit, format);
+        String etag = fileEntity.getContentHash() != null ? fileEntity.getContentHash() + "-" + variant.key() : null;
+        if (fileDeliveryService.checkNotModified(etag, lastModified, request, response)) {
+            return;
         }
 
-        String subDirectory = fileService.getSubDirectory(fileEntity.getEntityType(), fileEntity.getCategory());
-        Resource resource = fileStorageService.loadFileAsResource(storedFileName, subDirectory);
+        StoredContent content = fileService.loadFileContent(fileEntity);
+        Path derivativePath = imageDerivativeService.getDerivative(fileEntity, content, variant);
+        if (derivativePath == null) {
+            // The source cannot be decoded (e.g. WebP), so serve it unchanged
+            long bytes = fileDeliveryService.serve(content, fileEntity.getFileType(), contentDisposition,
+                    etag, lastModified, request, response);
+            fileMetrics.recordDownload("view", fileEntity, bytes, System.nanoTime() - start);
+            return;
+        }
 
-        return ResponseEntity.ok()
-                .contentType(MediaType.IMAGE_JPEG) // or determine dynamically
-                .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + fileEntity.getOriginalFileName() + "\"")
-                .body(resource);
+        long bytes = fileDeliveryService.serve(derivativePath, variant.contentType(), contentDisposition,
+                etag, lastModified, request, response);
+        fileMetrics.recordDownload("variant", fileEntity, bytes, System.nanoTime() - start);
     }
 
     @GetMapping("/entity/{entityType}/{entityId}")
-    @Operation(summary = "Get files by entity", description = "Get all files for a specific entity")
+    @Operation(summary = "Get files by entity",
+            description = "Get the files for a specific entity one page at a time, newest first")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Files retrieved successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor")
+    })
+    public ResponseEntity<CursorPageRes<FileUploadRes>> getFilePageByEntity(
+            @Parameter(description = "Entity type", required = true, example = "PRODUCT")
+            @PathVariable String entityType,
+            @Parameter(description = "Entity ID", required = true, example = "1")
+            @PathVariable Long entityId,
+            @Parameter(description = "Only files in this category")
+            @RequestParam(required = false) String category,
+            @Parameter(description = "nextCursor from the previous page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size", example = "20")
+            @RequestParam(required = false) Integer size) {
+
+        CursorPageRes<FileEntity> page = fileService.getFilePageByEntity(entityId, entityType, category, cursor, size);
+        return ResponseEntity.ok(page.map(FileUploadRes::new));
+    }
+
+    @GetMapping(value = "/entity/{entityType}/{entityId}", params = "unpaged=true")
+    @Operation(summary = "Get all files by entity", description = "Get all files for a specific entity in a single response")
     @ApiResponse(responseCode = "200", description = "Files retrieved successfully")
     public ResponseEntity<List<FileUploadRes>> getFilesByEntity(
             @Parameter(description = "Entity type", required = true, example = "PRODUCT")
             @PathVariable String entityType,
             @Parameter(description = "Entity ID", required = true, example = "1")
-            @PathVariable Long entityId) {
+            @PathVariable Long entityId,
+            @Parameter(description = "Only files in this category")
+            @RequestParam(required = false) String category) {
 
-        List<FileEntity> files = fileService.getFilesByEntity(entityId, entityType);
+        List<FileEntity> files = category != null
+                ? fileService.getFilesByEntityAndCategory(entityId, entityType, category)
+                : fileService.getFilesByEntity(entityId, entityType);
         List<FileUploadRes> responses = files.stream()
                 .map(FileUploadRes::new)
                 .collect(Collectors.toList());
@@ -161,6 +308,79 @@ public class FileController {
         return ResponseEntity.ok(responses);
     }
 
+    @GetMapping("/category/{category}")
+    @Operation(summary = "Get files by category",
+            description = "Get the files in a category one page at a time, newest first")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Files retrieved successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor")
+    })
+    public ResponseEntity<CursorPageRes<FileUploadRes>> getFilePageByCategory(
+            @Parameter(description = "File category", required = true, example = "PRODUCT_IMAGE")
+            @PathVariable String category,
+            @Parameter(description = "nextCursor from the previous page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size", example = "20")
+            @RequestParam(required = false) Integer size) {
+
+        CursorPageRes<FileEntity> page = fileService.getFilePageByCategory(category, cursor, size);
+        return ResponseEntity.ok(page.map(FileUploadRes::new));
+    }
+
+    @DeleteMapping("/entity/{entityType}/{entityId}")
+    @Operation(summary = "Delete files by entity",
+            description = "Delete all files for a specific entity. Use dryRun to only count what would be deleted")
+    @ApiResponse(responseCode = "200", description = "Files deleted (or counted, for a dry run)")
+    public ResponseEntity<FileBulkDeleteRes> deleteFilesByEntity(
+            @Parameter(description = "Entity type", required = true, example = "NEWS")
+            @PathVariable String entityType,
+            @Parameter(description = "Entity ID", required = true, example = "1")
+            @PathVariable Long entityId,
+            @Parameter(description = "Only report what would be deleted")
+            @RequestParam(defaultValue = "false") boolean dryRun) {
+
+        return ResponseEntity.ok(fileService.deleteFilesByEntity(entityId, entityType, dryRun));
+    }
+
+    @PostMapping("/layout/migrate")
+    @Operation(summary = "Migrate files to the sharded layout",
+            description = "Moves up to maxFiles flat-layout files into hash-sharded directories while they stay " +
+                    "downloadable. Call again with afterId = nextAfterId until nextAfterId is null")
+    @ApiResponse(responseCode = "200", description = "Migration progress")
+    public ResponseEntity<FileLayoutMigrationRes> migrateLayout(
+            @Parameter(description = "Continue after this file ID", example = "5021")
+            @RequestParam(required = false) Long afterId,
+            @Parameter(description = "Files moved per transaction", example = "500")
+            @RequestParam(required = false) Integer batchSize,
+            @Parameter(description = "Maximum number of files handled by this call", example = "10000")
+            @RequestParam(defaultValue = "10000") int maxFiles) {
+
+        return ResponseEntity.ok(layoutMigrationService.migrate(afterId, batchSize, maxFiles));
+    }
+
+    @GetMapping("/export")
+    @Operation(summary = "Export file metadata",
+            description = "Streams the metadata of every file as NDJSON (one object per line) or CSV, " +
+                    "straight from a database cursor, so memory use does not depend on the number of files")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Export streamed"),
+            @ApiResponse(responseCode = "400", description = "Unknown format")
+    })
+    public void exportFiles(
+            @Parameter(description = "Output format: ndjson or csv")
+            @RequestParam(defaultValue = "ndjson") String format,
+            HttpServletResponse response) throws IOException {
+
+        StreamingExportService.Format exportFormat = StreamingExportService.Format.of(format);
+        if (exportFormat == null) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            return;
+        }
+        response.setContentType(exportFormat.getContentType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"files." + exportFormat.getExtension() + "\"");
+        exportService.exportFiles(exportFormat, response.getOutputStream());
+    }
+
     @DeleteMapping("/{id}")
     @Operation(summary = "Delete a file", description = "Delete a file by ID")
     @ApiResponses({
@@ -176,12 +396,14 @@ public class FileController {
     }
 
     @PostMapping("/upload-multiple")
-    @Operation(summary = "Upload multiple files", description = "Upload multiple files at once")
+    @Operation(summary = "Upload multiple files",
+            description = "Upload multiple files at once. Each file is reported as stored or rejected")
     @ApiResponses({
             @ApiResponse(responseCode = "201", description = "Files uploaded successfully"),
+            @ApiResponse(responseCode = "207", description = "Some files were rejected; see the per-file results"),
             @ApiResponse(responseCode = "400", description = "Invalid files or data")
     })
-    public ResponseEntity<List<FileUploadRes>> uploadMultipleFiles(
+    public ResponseEntity<List<FileUploadResult>> uploadMultipleFiles(
             @Parameter(description = "Files to upload", required = true)
             @RequestParam("files") MultipartFile[] files,
             @Parameter(description = "File description")
@@ -193,20 +415,18 @@ public class FileController {
             @Parameter(description = "Associated entity type")
             @RequestParam(required = false) String entityType) {
 
-        List<FileUploadRes> responses = Arrays.stream(files)
-                .map(file -> {
-                    FileUploadReq uploadRequest = new FileUploadReq();
-                    uploadRequest.setFile(file);
-                    uploadRequest.setDescription(description);
-                    uploadRequest.setCategory(category);
-                    uploadRequest.setEntityId(entityId);
-                    uploadRequest.setEntityType(entityType);
-
-                    FileEntity fileEntity = fileService.uploadFile(uploadRequest);
-                    return new FileUploadRes(fileEntity);
-                })
-                .collect(Collectors.toList());
+        FileUploadReq uploadRequest = new FileUploadReq();
+        uploadRequest.setDescription(description);
+        uploadRequest.setCategory(category);
+        uploadRequest.setEntityId(entityId);
+        uploadRequest.setEntityType(entityType);
+
+        List<FileUploadResult> results = fileService.uploadFiles(Arrays.asList(files), uploadRequest);
 
-        return ResponseEntity.status(HttpStatus.CREATED).body(responses);
+        long failures = results.stream().filter(result -> !result.isSuccess()).count();
+        HttpStatus status = failures == 0
+                ? HttpStatus.CREATED
+                : failures == results.size() ? HttpStatus.BAD_REQUEST : HttpStatus.MULTI_STATUS;
+        return ResponseEntity.status(status).body(results);
     }
 }
\ No newline at end of file
@@ -1,13 +1,27 @@
 package kh.edu.ppua.api.controller;
 
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import kh.edu.ppua.api.dto.BulkImportRes;
+import kh.edu.ppua.api.dto.NewsSearchRes;
+import kh.edu.ppua.api.dto.NewsSummaryRes;
+import kh.edu.ppua.api.dto.SyncRes;
 import kh.edu.ppua.api.model.NewsEntity;
+import kh.edu.ppua.api.service.BulkImportService;
+import kh.edu.ppua.api.service.NewsResponseCache;
+import kh.edu.ppua.api.service.NewsResponseCache.CachedResponse;
 import kh.edu.ppua.api.service.NewsService;
+import kh.edu.ppua.api.service.StreamingExportService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
-import java.util.List;
+import java.io.IOException;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/v1/news")
@@ -17,18 +31,123 @@ public class NewsController {
     @Autowired
     private NewsService service;
 
-    // Get all news
+    @Autowired
+    private NewsResponseCache responseCache;
+
+    @Autowired
+    private StreamingExportService exportService;
+
+    // Get news one page at a time, newest first (a CursorPageRes of NewsEntity)
     @GetMapping
-    public List<NewsEntity> getAllNews() {
-        return service.getAllNews();
+    public ResponseEntity<byte[]> getNewsPage(@RequestParam(required = false) String cursor,
+                                              @RequestParam(required = false) Integer size,
+                                              ServletWebRequest request) {
+        CachedResponse cached = responseCache.get("page:" + cursor + ":" + size,
+                () -> service.getNewsPage(cursor, size));
+        return respond(cached, request);
+    }
+
+    // Get all news in a single response
+    @GetMapping(params = "unpaged=true")
+    public ResponseEntity<byte[]> getAllNews(ServletWebRequest request) {
+        return respond(responseCache.get("all", service::getAllNews), request);
+    }
+
+    // Get news summaries (no content, just an excerpt) one page at a time, newest first
+    // (a CursorPageRes of NewsSummaryRes)
+    @GetMapping(params = "view=summary")
+    public ResponseEntity<byte[]> getNewsSummaryPage(@RequestParam(required = false) String cursor,
+                                                     @RequestParam(required = false) Integer size,
+                                                     ServletWebRequest request) {
+        CachedResponse cached = responseCache.get("summary-page:" + cursor + ":" + size,
+                () -> service.getNewsSummaryPage(cursor, size));
+        return respond(cached, request);
+    }
+
+    // Get all news summaries in a single response, newest first (a list of NewsSummaryRes)
+    @GetMapping(params = {"unpaged=true", "view=summary"})
+    public ResponseEntity<byte[]> getAllNewsSummaries(ServletWebRequest request) {
+        return respond(responseCache.get("summary-all", service::getAllNewsSummaries), request);
+    }
+
+    // News created, updated or deleted since a sync token; without one, all news and a first token
+    @GetMapping("/sync")
+    public SyncRes<NewsEntity> syncNews(@RequestParam(required = false) String since) {
+        return service.syncNews(since);
+    }
+
+    // Search news; results are ranked, so pages are numbered rather than cursor based
+    @GetMapping("/search")
+    public NewsSearchRes searchNews(@RequestParam("q") String query,
+                                    @RequestParam(defaultValue = "0") int page,
+                                    @RequestParam(required = false) Integer size) {
+        return service.searchNews(query, page, size);
+    }
+
+    // Rebuild the search index from the database
+    @PostMapping("/search/rebuild")
+    public Map<String, Integer> rebuildSearchIndex() {
+        return Map.of("indexedNews", service.rebuildSearchIndex());
     }
 
     // Get single news
     @GetMapping("/{id}")
-    public ResponseEntity<NewsEntity> getNewsById(@PathVariable Long id) {
-        return service.getNewsById(id)
-                .map(ResponseEntity::ok)
-                .orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<byte[]> getNewsById(@PathVariable Long id, ServletWebRequest request) {
+        CachedResponse cached = responseCache.get("item:" + id, () -> service.getNewsById(id).orElse(null));
+        if (cached == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return respond(cached, request);
+    }
+
+    // Writes the cached bytes, gzipped when the client accepts it; null means a 304 has been prepared
+    private ResponseEntity<byte[]> respond(CachedResponse cached, ServletWebRequest request) {
+        boolean gzip = acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        // Set before the conditional check, so a 304 carries it as well
+        request.getResponse().setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (request.checkNotModified(gzip ? cached.gzipEtag() : cached.etag())) {
+            return null;
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON);
+        if (gzip) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(cached.gzip());
+        }
+        return response.body(cached.json());
+    }
+
+    // Whether gzip (or its alias x-gzip) is listed, or covered by *, with a q-value above zero
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzipQuality = null;
+        Double wildcardQuality = null;
+        for (String token : acceptEncoding.split(",")) {
+            String[] parts = token.split(";");
+            String coding = parts[0].trim().toLowerCase();
+            double quality = 1;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.startsWith("q=") || parameter.startsWith("Q=")) {
+                    try {
+                        quality = Double.parseDouble(parameter.substring(2).trim());
+                    } catch (NumberFormatException ex) {
+                        quality = 0;
+                    }
+                }
+            }
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                gzipQuality = gzipQuality == null ? quality : Math.max(gzipQuality, quality);
+            } else if (coding.equals("*")) {
+                wildcardQuality = quality;
+            }
+        }
+        if (gzipQuality != null) {
+            return gzipQuality > 0;
+        }
+        return wildcardQuality != null && wildcardQuality > 0;
     }
 
     // Create news
@@ -37,6 +156,27 @@ public class NewsController {
         return service.createNews(news);
     }
 
+    // Import news from NDJSON (one object per line) or CSV with a header row, inserted in batches
+    @PostMapping(value = "/import", consumes = {BulkImportService.NDJSON_VALUE, BulkImportService.CSV_VALUE})
+    public BulkImportRes importNews(@RequestParam(required = false) Integer batchSize,
+                                    HttpServletRequest request) throws IOException {
+        return service.importNews(request.getInputStream(), request.getContentType(), batchSize);
+    }
+
+    // Export all news as NDJSON or CSV, streamed from the database as it is read
+    @GetMapping("/export")
+    public void exportNews(@RequestParam(defaultValue = "ndjson") String format,
+                           HttpServletResponse response) throws IOException {
+        StreamingExportService.Format exportFormat = StreamingExportService.Format.of(format);
+        if (exportFormat == null) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            return;
+        }
+        response.setContentType(exportFormat.getContentType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"news." + exportFormat.getExtension() + "\"");
+        exportService.exportNews(exportFormat, response.getOutputStream());
+    }
+
     // Update news
     @PutMapping("/{id}")
     public ResponseEntity<NewsEntity> updateNews(@PathVariable Long id, @RequestBody NewsEntity newsDetails) {
@@ -0,0 +1,44 @@
+package kh.edu.ppua.api.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Result of a bulk import; rejected rows do not stop the import")
+public class BulkImportRes {
+
+    @Schema(description = "Number of data rows read", example = "12000")
+    private int totalRows;
+
+    @Schema(description = "Number of rows inserted", example = "11996")
+    private int importedRows;
+
+    @Schema(description = "Number of rows rejected", example = "4")
+    private int failedRows;
+
+    @Builder.Default
+    @Schema(description = "Rejected rows, up to import.max-reported-errors of them")
+    private List<RowError> errors = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Schema(description = "A rejected row")
+    public static class RowError {
+
+        @Schema(description = "Data row number, starting at 1 (a CSV header row is not counted)", example = "42")
+        private int row;
+
+        @Schema(description = "Why the row was rejected", example = "title is required")
+        private String message;
+    }
+}
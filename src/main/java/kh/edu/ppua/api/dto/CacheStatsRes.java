@@ -0,0 +1,33 @@
+package kh.edu.ppua.api.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Statistics of one in-process cache since startup")
+public class CacheStatsRes {
+
+    @Schema(description = "Cache name", example = "faculty")
+    private String name;
+
+    @Schema(description = "Approximate number of entries", example = "42")
+    private long size;
+
+    @Schema(description = "Lookups answered from the cache", example = "10890")
+    private long hitCount;
+
+    @Schema(description = "Lookups that went to the database", example = "57")
+    private long missCount;
+
+    @Schema(description = "Hits divided by lookups", example = "0.9948")
+    private double hitRate;
+
+    @Schema(description = "Entries evicted for size or expiry", example = "3")
+    private long evictionCount;
+}
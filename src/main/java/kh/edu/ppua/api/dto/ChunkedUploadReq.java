@@ -0,0 +1,30 @@
+package kh.edu.ppua.api.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+@Data
+@Schema(description = "Resumable upload session request")
+public class ChunkedUploadReq {
+
+    @Schema(description = "Original file name", example = "lecture-01.mp4", required = true)
+    private String fileName;
+
+    @Schema(description = "File type", example = "video/mp4")
+    private String contentType;
+
+    @Schema(description = "Total file size in bytes", example = "524288000", required = true)
+    private Long totalSize;
+
+    @Schema(description = "File description", example = "Lecture recording")
+    private String description;
+
+    @Schema(description = "File category", example = "LECTURE")
+    private String category;
+
+    @Schema(description = "Associated entity ID", example = "1")
+    private Long entityId;
+
+    @Schema(description = "Associated entity type", example = "FACULTY")
+    private String entityType;
+}
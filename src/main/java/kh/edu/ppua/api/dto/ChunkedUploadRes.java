@@ -0,0 +1,45 @@
+package kh.edu.ppua.api.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Resumable upload session status")
+public class ChunkedUploadRes {
+
+    @Schema(description = "Upload session ID", example = "3f2c7d8e-4b1a-4c55-9a0e-6f1d2b3c4d5e")
+    private String uploadId;
+
+    @Schema(description = "Original file name", example = "lecture-01.mp4")
+    private String fileName;
+
+    @Schema(description = "Total file size in bytes", example = "524288000")
+    private Long totalSize;
+
+    @Schema(description = "Chunk size in bytes; every chunk except the last must be exactly this size", example = "8388608")
+    private Integer chunkSize;
+
+    @Schema(description = "Number of bytes received so far", example = "16777216")
+    private Long receivedBytes;
+
+    @Schema(description = "Offset up to which the file has been received without gaps", example = "16777216")
+    private Long offset;
+
+    @Schema(description = "Indexes of the chunks that have not been received yet")
+    private List<Integer> missingChunks;
+
+    @Schema(description = "Whether every chunk has been received")
+    private boolean complete;
+
+    @Schema(description = "When the session expires unless more chunks are received")
+    private LocalDateTime expiresAt;
+}
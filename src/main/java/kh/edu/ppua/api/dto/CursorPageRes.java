@@ -0,0 +1,39 @@
+package kh.edu.ppua.api.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import kh.edu.ppua.api.util.PageCursor;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.function.Function;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "One page of a listing; pass nextCursor back as the cursor parameter to get the following page")
+public class CursorPageRes<T> {
+
+    @Schema(description = "Items on this page")
+    private List<T> items;
+
+    @Schema(description = "Opaque token for the next page, or null on the last page", example = "MTI0LDIwMjUtMDktMDFUMTA6MTU6MzA")
+    private String nextCursor;
+
+    /**
+     * Builds a page from rows fetched with a limit of {@code size + 1}; the extra row only
+     * signals that another page exists.
+     */
+    public static <T> CursorPageRes<T> of(List<T> rows, int size, Function<T, PageCursor> cursorOf) {
+        if (rows.size() <= size) {
+            return new CursorPageRes<>(rows, null);
+        }
+        List<T> items = rows.subList(0, size);
+        return new CursorPageRes<>(items, cursorOf.apply(items.get(size - 1)).encode());
+    }
+
+    public <R> CursorPageRes<R> map(Function<? super T, ? extends R> mapper) {
+        return new CursorPageRes<>(items.stream().<R>map(mapper).toList(), nextCursor);
+    }
+}
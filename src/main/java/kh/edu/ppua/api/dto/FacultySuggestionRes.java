@@ -0,0 +1,27 @@
+package kh.edu.ppua.api.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Faculty matching an autocomplete prefix")
+public class FacultySuggestionRes {
+
+    @Schema(description = "Faculty ID", example = "3")
+    private Long id;
+
+    @Schema(description = "Faculty name", example = "Faculty of Fine Arts")
+    private String name;
+
+    @Schema(description = "Faculty name in Khmer", example = "មហាវិទ្យាល័យវិចិត្រសិល្បៈ")
+    private String nameKh;
+
+    @Schema(description = "Contact email", example = "finearts@ppua.edu.kh")
+    private String email;
+}
@@ -0,0 +1,33 @@
+package kh.edu.ppua.api.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Result of deleting all files of an entity")
+public class FileBulkDeleteRes {
+
+    @Schema(description = "Associated entity type", example = "NEWS")
+    private String entityType;
+
+    @Schema(description = "Associated entity ID", example = "1")
+    private Long entityId;
+
+    @Schema(description = "Whether this was a dry run; nothing is deleted when true")
+    private boolean dryRun;
+
+    @Schema(description = "Number of files matching the entity", example = "240")
+    private int matchedFiles;
+
+    @Schema(description = "Number of file records deleted", example = "240")
+    private int deletedFiles;
+
+    @Schema(description = "Total size of the matching files in bytes", example = "157286400")
+    private long totalSize;
+}
@@ -0,0 +1,30 @@
+package kh.edu.ppua.api.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Progress of moving flat-layout files into the sharded layout")
+public class FileLayoutMigrationRes {
+
+    @Schema(description = "Files moved by this run", example = "5000")
+    private int migratedFiles;
+
+    @Schema(description = "Records whose file was not found on disk; they are left unchanged", example = "3")
+    private int missingFiles;
+
+    @Schema(description = "Files that could not be moved; they stay in the flat layout and are retried next run", example = "0")
+    private int failedFiles;
+
+    @Schema(description = "Records still in the flat layout, including missing and failed ones", example = "120000")
+    private long remainingFiles;
+
+    @Schema(description = "ID to pass as afterId to continue, or null when the end of the table was reached", example = "5021")
+    private Long nextAfterId;
+}
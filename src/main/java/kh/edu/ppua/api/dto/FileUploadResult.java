@@ -0,0 +1,43 @@
+package kh.edu.ppua.api.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Outcome of one file in a batch upload")
+public class FileUploadResult {
+
+    @Schema(description = "Original file name", example = "product-image.jpg")
+    private String fileName;
+
+    @Schema(description = "Whether the file was stored")
+    private boolean success;
+
+    @Schema(description = "Stored file, when successful")
+    private FileUploadRes file;
+
+    @Schema(description = "Reason the file was rejected, when unsuccessful", example = "File size exceeds the maximum allowed size.")
+    private String error;
+
+    public static FileUploadResult success(FileUploadRes file) {
+        return FileUploadResult.builder()
+                .fileName(file.getOriginalFileName())
+                .success(true)
+                .file(file)
+                .build();
+    }
+
+    public static FileUploadResult failure(String fileName, String error) {
+        return FileUploadResult.builder()
+                .fileName(fileName)
+                .success(false)
+                .error(error)
+                .build();
+    }
+}
@@ -0,0 +1,33 @@
+package kh.edu.ppua.api.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import kh.edu.ppua.api.model.NewsEntity;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "One page of news search results, best match first")
+public class NewsSearchRes {
+
+    @Schema(description = "Search query", example = "សិល្បៈ")
+    private String query;
+
+    @Schema(description = "Number of matching news items", example = "37")
+    private int total;
+
+    @Schema(description = "Page number, starting at 0", example = "0")
+    private int page;
+
+    @Schema(description = "Page size", example = "20")
+    private int size;
+
+    @Schema(description = "Matching news on this page")
+    private List<NewsEntity> items;
+}
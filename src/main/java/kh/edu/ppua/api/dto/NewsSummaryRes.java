@@ -0,0 +1,33 @@
+package kh.edu.ppua.api.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "News as shown in a list; the full content is only returned by GET /api/v1/news/{id}")
+public class NewsSummaryRes {
+
+    @Schema(description = "News ID", example = "124")
+    private Long id;
+
+    @Schema(description = "News title", example = "Annual Exhibition 2025")
+    private String title;
+
+    @Schema(description = "Author", example = "Office of Communications")
+    private String author;
+
+    @Schema(description = "Publication date")
+    private LocalDateTime publishedDate;
+
+    @Schema(description = "Start of the content, ending in … when the content is longer (news.excerpt-length characters)",
+            example = "The Royal University of Fine Arts opens its annual student exhibition on…")
+    private String excerpt;
+}
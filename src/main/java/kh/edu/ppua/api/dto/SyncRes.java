@@ -0,0 +1,28 @@
+package kh.edu.ppua.api.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Changes after a sync token; pass token back as the since parameter on the next sync")
+public class SyncRes<T> {
+
+    @Schema(description = "True when items is the complete list and replaces the local copy " +
+            "(no token was sent, or it is older than the deletion log)")
+    private boolean full;
+
+    @Schema(description = "Rows created or updated after the token")
+    private List<T> items;
+
+    @Schema(description = "IDs of rows deleted after the token")
+    private List<Long> deleted;
+
+    @Schema(description = "Token for the next sync", example = "MCwyMDI1LTA5LTAxVDEwOjE1OjMw")
+    private String token;
+}
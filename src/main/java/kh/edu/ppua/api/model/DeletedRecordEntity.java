@@ -0,0 +1,41 @@
+package kh.edu.ppua.api.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Tombstone for a deleted news or faculty row, so a delta sync can tell clients to drop it.
+ * Kept for {@code sync.tombstone-retention}.
+ */
+@Entity
+@Table(name = "tb_deleted_record",
+        indexes = @Index(name = "idx_deleted_record_type_deleted_at", columnList = "entity_type, deleted_at"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DeletedRecordEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 20)
+    private String entityType;
+
+    @Column(nullable = false)
+    private Long entityId;
+
+    @Column(nullable = false)
+    private LocalDateTime deletedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        deletedAt = LocalDateTime.now();
+    }
+}
@@ -4,15 +4,19 @@ package kh.edu.ppua.api.model;
 import jakarta.persistence.*;
         import lombok.*;
 
+import java.time.LocalDateTime;
+
 @Entity
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "tb_faculty")
+@Table(name = "tb_faculty", indexes = @Index(name = "idx_faculty_updated_at", columnList = "updated_at"))
 public class FacultyEntity {
 
+    // Pooled sequence ids (not IDENTITY), so bulk imports can batch their inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "faculty_seq")
+    @SequenceGenerator(name = "faculty_seq", sequenceName = "tb_faculty_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -25,4 +29,13 @@ public class FacultyEntity {
     private String email;
 
     private String phone;
+
+    // Stamped on every insert and update; the sync API returns rows changed after a token
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onChange() {
+        updatedAt = LocalDateTime.now();
+    }
 }
@@ -39,10 +39,21 @@ public class FileEntity {
     @Schema(description = "File size in bytes", example = "102400")
     private Long fileSize;
 
+    @Column(length = 64)
+    @Schema(description = "SHA-256 of the file content, used as the download ETag",
+            example = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08")
+    private String contentHash;
+
     @Column(nullable = false, length = 500)
     @Schema(description = "File storage path", example = "/uploads/images/products/a1b2c3d4-product-image.jpg")
     private String filePath;
 
+    @Column(length = 500)
+    @Schema(description = "Physical location relative to the upload directory, when it differs from filePath",
+            example = "blobs/9f/86/9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08",
+            accessMode = Schema.AccessMode.READ_ONLY)
+    private String storagePath;
+
     @Column(length = 500)
     @Schema(description = "File description", example = "Main product image")
     private String description;
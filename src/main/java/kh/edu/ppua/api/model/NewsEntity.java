@@ -7,10 +7,12 @@ import jakarta.persistence.*;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "tb_news")
+@Table(name = "tb_news", indexes = @Index(name = "idx_news_updated_at", columnList = "updated_at"))
 public class NewsEntity {
+    // Pooled sequence ids (not IDENTITY), so bulk imports can batch their inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "news_seq")
+    @SequenceGenerator(name = "news_seq", sequenceName = "tb_news_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -22,4 +24,13 @@ public class NewsEntity {
     private String author;
 
     private LocalDateTime publishedDate;
+
+    // Stamped on every insert and update; the sync API returns rows changed after a token
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onChange() {
+        updatedAt = LocalDateTime.now();
+    }
 }
@@ -0,0 +1,25 @@
+package kh.edu.ppua.api.repository;
+
+import kh.edu.ppua.api.model.DeletedRecordEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface DeletedRecordRepository extends JpaRepository<DeletedRecordEntity, Long> {
+
+    @Query("SELECT DISTINCT d.entityId FROM DeletedRecordEntity d WHERE d.entityType = :entityType " +
+            "AND d.deletedAt > :since AND d.deletedAt <= :until")
+    List<Long> findDeletedIds(@Param("entityType") String entityType,
+                              @Param("since") LocalDateTime since,
+                              @Param("until") LocalDateTime until);
+
+    @Modifying
+    @Query("DELETE FROM DeletedRecordEntity d WHERE d.deletedAt < :before")
+    int deleteByDeletedAtBefore(@Param("before") LocalDateTime before);
+}
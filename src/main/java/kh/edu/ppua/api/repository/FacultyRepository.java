@@ -1,9 +1,20 @@
 package kh.edu.ppua.api.repository;
 
 import kh.edu.ppua.api.model.FacultyEntity;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 @Repository
 public interface FacultyRepository extends JpaRepository<FacultyEntity, Long> {
+
+    List<FacultyEntity> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    @Query("SELECT f FROM FacultyEntity f WHERE f.updatedAt > :since AND f.updatedAt <= :until ORDER BY f.updatedAt, f.id")
+    List<FacultyEntity> findChangedBetween(@Param("since") LocalDateTime since, @Param("until") LocalDateTime until);
 }
\ No newline at end of file
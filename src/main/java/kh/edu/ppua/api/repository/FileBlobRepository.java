@@ -0,0 +1,44 @@
+package kh.edu.ppua.api.repository;
+
+import kh.edu.ppua.api.model.FileBlobEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface FileBlobRepository extends JpaRepository<FileBlobEntity, String> {
+
+    // Creates the blob row or adds a reference to it; the row stays locked until the transaction ends
+    @Modifying
+    @Query(value = "INSERT INTO tbl_file_blobs (content_hash, blob_path, file_size, ref_count, created_at) " +
+            "VALUES (:contentHash, :blobPath, :fileSize, 1, now()) " +
+            "ON CONFLICT (content_hash) DO UPDATE SET ref_count = tbl_file_blobs.ref_count + 1",
+            nativeQuery = true)
+    int acquireReference(@Param("contentHash") String contentHash,
+                         @Param("blobPath") String blobPath,
+                         @Param("fileSize") long fileSize);
+
+    // Locks the blob row without adding a reference, creating it unreferenced if it does not exist
+    @Modifying
+    @Query(value = "INSERT INTO tbl_file_blobs (content_hash, blob_path, file_size, ref_count, created_at) " +
+            "VALUES (:contentHash, :blobPath, :fileSize, 0, now()) " +
+            "ON CONFLICT (content_hash) DO UPDATE SET ref_count = tbl_file_blobs.ref_count",
+            nativeQuery = true)
+    int lockReference(@Param("contentHash") String contentHash,
+                      @Param("blobPath") String blobPath,
+                      @Param("fileSize") long fileSize);
+
+    @Modifying
+    @Query("UPDATE FileBlobEntity b SET b.refCount = b.refCount - 1 WHERE b.contentHash = :contentHash")
+    int releaseReference(@Param("contentHash") String contentHash);
+
+    @Modifying
+    @Query("UPDATE FileBlobEntity b SET b.refCount = b.refCount - :count WHERE b.contentHash = :contentHash")
+    int releaseReferences(@Param("contentHash") String contentHash, @Param("count") long count);
+
+    @Modifying
+    @Query("DELETE FROM FileBlobEntity b WHERE b.contentHash = :contentHash AND b.refCount <= 0")
+    int deleteIfUnreferenced(@Param("contentHash") String contentHash);
+}
@@ -1,21 +1,33 @@
 package kh.edu.ppua.api.repository;
 
 import kh.edu.ppua.api.model.FileEntity;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface FileRepository extends JpaRepository<FileEntity, Long> {
+public interface FileRepository extends JpaRepository<FileEntity, Long>, FileRepositoryCustom {
 
     Optional<FileEntity> findByStoredFileName(String storedFileName);
 
     List<FileEntity> findByEntityIdAndEntityType(Long entityId, String entityType);
 
+    // Only the columns a bulk delete needs to count the files and remove them from storage
+    @Query("SELECT f.id AS id, f.fileSize AS fileSize, f.storedFileName AS storedFileName, " +
+            "f.storagePath AS storagePath, f.entityType AS entityType, f.category AS category, " +
+            "f.contentHash AS contentHash " +
+            "FROM FileEntity f WHERE f.entityId = :entityId AND f.entityType = :entityType")
+    List<StoredFileRow> findStoredFilesByEntity(@Param("entityId") Long entityId,
+                                                @Param("entityType") String entityType);
+
     List<FileEntity> findByCategory(String category);
 
     @Query("SELECT f FROM FileEntity f WHERE f.entityType = :entityType AND f.entityId = :entityId AND f.category = :category")
@@ -23,8 +35,67 @@ public interface FileRepository extends JpaRepository<FileEntity, Long> {
                                              @Param("entityId") Long entityId,
                                              @Param("category") String category);
 
+    // Keyset pages, newest first
+    @Query("SELECT f FROM FileEntity f WHERE f.entityType = :entityType AND f.entityId = :entityId " +
+            "AND (f.uploadedAt < :uploadedAt OR (f.uploadedAt = :uploadedAt AND f.id < :id)) " +
+            "ORDER BY f.uploadedAt DESC, f.id DESC")
+    List<FileEntity> findPageByEntity(@Param("entityType") String entityType,
+                                      @Param("entityId") Long entityId,
+                                      @Param("uploadedAt") LocalDateTime uploadedAt,
+                                      @Param("id") Long id,
+                                      Limit limit);
+
+    @Query("SELECT f FROM FileEntity f WHERE f.entityType = :entityType AND f.entityId = :entityId " +
+            "AND f.category = :category " +
+            "AND (f.uploadedAt < :uploadedAt OR (f.uploadedAt = :uploadedAt AND f.id < :id)) " +
+            "ORDER BY f.uploadedAt DESC, f.id DESC")
+    List<FileEntity> findPageByEntityAndCategory(@Param("entityType") String entityType,
+                                                 @Param("entityId") Long entityId,
+                                                 @Param("category") String category,
+                                                 @Param("uploadedAt") LocalDateTime uploadedAt,
+                                                 @Param("id") Long id,
+                                                 Limit limit);
+
+    @Query("SELECT f FROM FileEntity f WHERE f.category = :category " +
+            "AND (f.uploadedAt < :uploadedAt OR (f.uploadedAt = :uploadedAt AND f.id < :id)) " +
+            "ORDER BY f.uploadedAt DESC, f.id DESC")
+    List<FileEntity> findPageByCategory(@Param("category") String category,
+                                        @Param("uploadedAt") LocalDateTime uploadedAt,
+                                        @Param("id") Long id,
+                                        Limit limit);
+
     @Query("SELECT f FROM FileEntity f WHERE f.fileType LIKE 'image/%'")
     List<FileEntity> findAllImages();
 
+    // Files still in the flat layout, for the layout migration
+    List<FileEntity> findByStoragePathIsNullAndIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    long countByStoragePathIsNull();
+
+    @Modifying
+    @Query("UPDATE FileEntity f SET f.storagePath = :storagePath WHERE f.id = :id AND f.storagePath IS NULL")
+    int updateStoragePath(@Param("id") Long id, @Param("storagePath") String storagePath);
+
     void deleteByStoredFileName(String storedFileName);
+
+    @Modifying
+    @Query("DELETE FROM FileEntity f WHERE f.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
+    interface StoredFileRow {
+
+        Long getId();
+
+        Long getFileSize();
+
+        String getStoredFileName();
+
+        String getStoragePath();
+
+        String getEntityType();
+
+        String getCategory();
+
+        String getContentHash();
+    }
 }
\ No newline at end of file
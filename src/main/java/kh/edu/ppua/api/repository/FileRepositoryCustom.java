@@ -0,0 +1,14 @@
+package kh.edu.ppua.api.repository;
+
+import kh.edu.ppua.api.model.FileEntity;
+
+import java.util.List;
+
+public interface FileRepositoryCustom {
+
+    /**
+     * Inserts all files with multi-row INSERT statements and sets their generated ids.
+     * Unlike {@code saveAll}, this does not issue one statement per row for IDENTITY ids.
+     */
+    List<FileEntity> insertAll(List<FileEntity> files);
+}
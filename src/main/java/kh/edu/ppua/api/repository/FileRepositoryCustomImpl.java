@@ -0,0 +1,71 @@
+package kh.edu.ppua.api.repository;
+
+import kh.edu.ppua.api.model.FileEntity;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+public class FileRepositoryCustomImpl implements FileRepositoryCustom {
+
+    private static final String INSERT_FILES = "INSERT INTO tbl_files (original_file_name, stored_file_name, " +
+            "file_type, file_size, content_hash, storage_path, file_path, description, category, uploaded_at, " +
+            "entity_id, entity_type) VALUES ";
+    private static final String ROW_PLACEHOLDERS = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // Keeps each statement well below PostgreSQL's 65535 bind parameter limit
+    private static final int MAX_ROWS_PER_STATEMENT = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public FileRepositoryCustomImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public List<FileEntity> insertAll(List<FileEntity> files) {
+        LocalDateTime now = LocalDateTime.now();
+        Map<String, Long> generatedIds = new HashMap<>();
+
+        for (int from = 0; from < files.size(); from += MAX_ROWS_PER_STATEMENT) {
+            List<FileEntity> batch = files.subList(from, Math.min(files.size(), from + MAX_ROWS_PER_STATEMENT));
+
+            StringJoiner rows = new StringJoiner(", ");
+            List<Object> args = new ArrayList<>(batch.size() * 12);
+            for (FileEntity file : batch) {
+                if (file.getUploadedAt() == null) {
+                    file.setUploadedAt(now);
+                }
+                rows.add(ROW_PLACEHOLDERS);
+                args.add(file.getOriginalFileName());
+                args.add(file.getStoredFileName());
+                args.add(file.getFileType());
+                args.add(file.getFileSize());
+                args.add(file.getContentHash());
+                args.add(file.getStoragePath());
+                args.add(file.getFilePath());
+                args.add(file.getDescription());
+                args.add(file.getCategory());
+                args.add(Timestamp.valueOf(file.getUploadedAt()));
+                args.add(file.getEntityId());
+                args.add(file.getEntityType());
+            }
+
+            // Stored file names are unique, so they tie the returned ids back to the rows
+            jdbcTemplate.query(INSERT_FILES + rows + " RETURNING id, stored_file_name",
+                    (RowCallbackHandler) rs -> generatedIds.put(rs.getString("stored_file_name"), rs.getLong("id")),
+                    args.toArray());
+        }
+
+        files.forEach(file -> file.setId(generatedIds.get(file.getStoredFileName())));
+        return files;
+    }
+}
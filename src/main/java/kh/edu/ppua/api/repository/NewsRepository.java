@@ -2,13 +2,70 @@ package kh.edu.ppua.api.repository;
 
 import kh.edu.ppua.api.model.NewsEntity;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface NewsRepository extends JpaRepository<NewsEntity, Long> {
+
+    // List views read only the first characters of the content, never the whole TEXT column
+    String SUMMARY_SELECT = "SELECT n.id AS id, n.title AS title, n.author AS author, " +
+            "n.publishedDate AS publishedDate, SUBSTRING(n.content, 1, :contentLength) AS contentStart " +
+            "FROM NewsEntity n ";
+
+    // Newest first; news without a published date come after all dated news
+    @Query("SELECT n FROM NewsEntity n " +
+            "WHERE n.publishedDate < :publishedDate OR (n.publishedDate = :publishedDate AND n.id < :id) " +
+            "OR n.publishedDate IS NULL " +
+            "ORDER BY n.publishedDate DESC NULLS LAST, n.id DESC")
+    List<NewsEntity> findPageBefore(@Param("publishedDate") LocalDateTime publishedDate,
+                                    @Param("id") Long id,
+                                    Limit limit);
+
+    @Query("SELECT n FROM NewsEntity n WHERE n.publishedDate IS NULL AND n.id < :id ORDER BY n.id DESC")
+    List<NewsEntity> findUndatedPageBefore(@Param("id") Long id, Limit limit);
+
+    List<NewsEntity> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    @Query("SELECT n FROM NewsEntity n WHERE n.updatedAt > :since AND n.updatedAt <= :until ORDER BY n.updatedAt, n.id")
+    List<NewsEntity> findChangedBetween(@Param("since") LocalDateTime since, @Param("until") LocalDateTime until);
+
+    // Same ordering and keyset as findPageBefore and findUndatedPageBefore, as summaries
+    @Query(SUMMARY_SELECT +
+            "WHERE n.publishedDate < :publishedDate OR (n.publishedDate = :publishedDate AND n.id < :id) " +
+            "OR n.publishedDate IS NULL " +
+            "ORDER BY n.publishedDate DESC NULLS LAST, n.id DESC")
+    List<NewsSummaryRow> findSummaryPageBefore(@Param("publishedDate") LocalDateTime publishedDate,
+                                               @Param("id") Long id,
+                                               @Param("contentLength") int contentLength,
+                                               Limit limit);
+
+    @Query(SUMMARY_SELECT + "WHERE n.publishedDate IS NULL AND n.id < :id ORDER BY n.id DESC")
+    List<NewsSummaryRow> findUndatedSummaryPageBefore(@Param("id") Long id,
+                                                      @Param("contentLength") int contentLength,
+                                                      Limit limit);
+
+    @Query(SUMMARY_SELECT + "ORDER BY n.publishedDate DESC NULLS LAST, n.id DESC")
+    List<NewsSummaryRow> findAllSummaries(@Param("contentLength") int contentLength);
+
+    interface NewsSummaryRow {
+
+        Long getId();
+
+        String getTitle();
+
+        String getAuthor();
+
+        LocalDateTime getPublishedDate();
+
+        String getContentStart();
+    }
 }
@@ -0,0 +1,174 @@
+package kh.edu.ppua.api.service;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Writes parts of a file (and literal bytes, e.g. multipart boundaries) to an async response using
+ * non-blocking servlet I/O. Data is written only while the socket is writable, so no thread waits
+ * on a slow client. The transfer is abandoned when no bytes could be written for {@code writeTimeout}.
+ */
+final class AsyncFileTransfer implements WriteListener, AsyncListener {
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private final AsyncContext asyncContext;
+    private final ServletOutputStream outputStream;
+    private final FileChannel channel;
+    private final Iterator<Segment> segments;
+    private final FileMetrics fileMetrics;
+    private final TaskScheduler taskScheduler;
+    private final Duration writeTimeout;
+    private final byte[] chunk = new byte[CHUNK_SIZE];
+    private final AtomicBoolean completed = new AtomicBoolean();
+    // Set once the transfer has started; guarded by this
+    private ScheduledFuture<?> watchdog;
+
+    private Segment current;
+    private long position;
+    private long remaining;
+    private volatile long lastProgress;
+
+    AsyncFileTransfer(AsyncContext asyncContext, FileChannel channel, List<Segment> segments,
+                      FileMetrics fileMetrics, TaskScheduler taskScheduler, Duration writeTimeout) throws IOException {
+        this.asyncContext = asyncContext;
+        this.outputStream = asyncContext.getResponse().getOutputStream();
+        this.channel = channel;
+        this.segments = segments.iterator();
+        this.fileMetrics = fileMetrics;
+        this.taskScheduler = taskScheduler;
+        this.writeTimeout = writeTimeout;
+        this.lastProgress = System.nanoTime();
+    }
+
+    /**
+     * Takes over the response: the caller must return without writing anything else. If this
+     * throws, nothing has been counted or scheduled and the caller still owns the channel.
+     */
+    void start() {
+        asyncContext.addListener(this);
+        outputStream.setWriteListener(this);
+
+        Duration checkInterval = writeTimeout.dividedBy(4).compareTo(Duration.ofSeconds(1)) < 0
+                ? Duration.ofSeconds(1)
+                : writeTimeout.dividedBy(4);
+        synchronized (this) {
+            if (completed.get()) {
+                return;
+            }
+            fileMetrics.transferStarted();
+            watchdog = taskScheduler.scheduleAtFixedRate(this::checkProgress, checkInterval);
+        }
+    }
+
+    @Override
+    public void onWritePossible() throws IOException {
+        while (outputStream.isReady()) {
+            if (remaining == 0 && !advance()) {
+                asyncContext.complete();
+                return;
+            }
+            if (current.bytes() != null) {
+                outputStream.write(current.bytes());
+                remaining = 0;
+            } else {
+                int read = channel.read(ByteBuffer.wrap(chunk, 0, (int) Math.min(CHUNK_SIZE, remaining)), position);
+                if (read <= 0) {
+                    throw new IOException("Unexpected end of file at position " + position);
+                }
+                // The container keeps whatever it cannot send yet, so the chunk can be reused right away
+                outputStream.write(chunk, 0, read);
+                position += read;
+                remaining -= read;
+            }
+            lastProgress = System.nanoTime();
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        // Usually the client went away; there is nothing left to send an error to
+        asyncContext.complete();
+    }
+
+    @Override
+    public void onComplete(AsyncEvent event) {
+        release();
+    }
+
+    @Override
+    public void onTimeout(AsyncEvent event) {
+        asyncContext.complete();
+    }
+
+    @Override
+    public void onError(AsyncEvent event) {
+        asyncContext.complete();
+    }
+
+    @Override
+    public void onStartAsync(AsyncEvent event) {
+        // not re-dispatched
+    }
+
+    private boolean advance() {
+        if (!segments.hasNext()) {
+            return false;
+        }
+        current = segments.next();
+        position = current.position();
+        remaining = current.bytes() != null ? current.bytes().length : current.count();
+        return true;
+    }
+
+    private void checkProgress() {
+        if (!completed.get() && System.nanoTime() - lastProgress > writeTimeout.toNanos()) {
+            fileMetrics.transferTimedOut();
+            asyncContext.complete();
+        }
+    }
+
+    private void release() {
+        if (!completed.compareAndSet(false, true)) {
+            return;
+        }
+        synchronized (this) {
+            if (watchdog != null) {
+                watchdog.cancel(false);
+                fileMetrics.transferEnded();
+            }
+        }
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // read-only channel, nothing to lose
+        }
+    }
+
+    /**
+     * Either literal bytes or a region of the file.
+     */
+    record Segment(byte[] bytes, long position, long count) {
+
+        static Segment of(byte[] bytes) {
+            return new Segment(bytes, 0, 0);
+        }
+
+        static Segment region(long position, long count) {
+            return new Segment(null, position, count);
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package kh.edu.ppua.api.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import kh.edu.ppua.api.dto.BulkImportRes;
+import kh.edu.ppua.api.util.CsvReader;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Streams NDJSON (one JSON object per line) or CSV (header row first) into entities and inserts
+ * them in JDBC batches.
+ * <p>
+ * Rows are parsed one at a time, so the input is never held in memory, and each batch is its own
+ * short transaction, so no connection is held while the client is still sending. If a batch fails
+ * (for example on a unique constraint), its rows are retried one by one to find the offending
+ * ones. Every rejected row is reported; the rest of the import continues.
+ */
+@Service
+public class BulkImportService {
+
+    public static final String NDJSON_VALUE = "application/x-ndjson";
+    public static final String CSV_VALUE = "text/csv";
+
+    private static final TypeReference<Map<String, Object>> ROW_TYPE = new TypeReference<>() {
+    };
+
+    @Value("${import.batch-size:500}")
+    private int defaultBatchSize;
+
+    @Value("${import.max-batch-size:5000}")
+    private int maxBatchSize;
+
+    @Value("${import.max-reported-errors:100}")
+    private int maxReportedErrors;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final ObjectMapper objectMapper;
+    private final ObjectReader rowReader;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public BulkImportService(ObjectMapper objectMapper, PlatformTransactionManager transactionManager) {
+        this.objectMapper = objectMapper;
+        this.rowReader = objectMapper.readerFor(ROW_TYPE);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * @param validator   returns why an entity cannot be imported, or {@code null} if it can
+     * @param afterImport refreshes whatever depends on the imported table; runs once at the end if
+     *                    any row was committed, also when the input breaks off with an exception
+     */
+    public <T> BulkImportRes importRows(InputStream input, String contentType, Class<T> type,
+                                        Function<T, String> validator, Integer batchSize,
+                                        Runnable afterImport) throws IOException {
+        int size = batchSize != null ? Math.max(1, Math.min(batchSize, maxBatchSize)) : defaultBatchSize;
+        BulkImportRes result = new BulkImportRes();
+        List<Row> batch = new ArrayList<>(size);
+
+        try {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+            RowSource source = isCsv(contentType) ? csvRows(new CsvReader(reader)) : ndjsonRows(reader);
+
+            Row row;
+            while ((row = source.next()) != null) {
+                result.setTotalRows(result.getTotalRows() + 1);
+                if (row.error() != null) {
+                    reject(result, row.number(), row.error());
+                    continue;
+                }
+                batch.add(row);
+                if (batch.size() == size) {
+                    insertBatch(batch, type, validator, size, result);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                insertBatch(batch, type, validator, size, result);
+            }
+        } finally {
+            // Batches are committed as they go, so a broken-off import still leaves rows behind
+            if (result.getImportedRows() > 0) {
+                afterImport.run();
+            }
+        }
+        return result;
+    }
+
+    private <T> void insertBatch(List<Row> rows, Class<T> type, Function<T, String> validator, int batchSize,
+                                 BulkImportRes result) {
+        List<Row> valid = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            String error = validate(row, type, validator);
+            if (error != null) {
+                reject(result, row.number(), error);
+            } else {
+                valid.add(row);
+            }
+        }
+        if (valid.isEmpty()) {
+            return;
+        }
+
+        try {
+            persist(valid, type, batchSize);
+            result.setImportedRows(result.getImportedRows() + valid.size());
+        } catch (RuntimeException batchFailure) {
+            // Find the rows that broke the batch; the others still go in
+            for (Row row : valid) {
+                try {
+                    persist(List.of(row), type, 1);
+                    result.setImportedRows(result.getImportedRows() + 1);
+                } catch (RuntimeException ex) {
+                    reject(result, row.number(), rootMessage(ex));
+                }
+            }
+        }
+    }
+
+    private <T> void persist(List<Row> rows, Class<T> type, int batchSize) {
+        transactionTemplate.executeWithoutResult(status -> {
+            entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+            for (Row row : rows) {
+                // A fresh entity every time, so a retry never sees the id assigned by a failed batch
+                entityManager.persist(toEntity(row, type));
+            }
+            entityManager.flush();
+            entityManager.clear();
+        });
+    }
+
+    private <T> String validate(Row row, Class<T> type, Function<T, String> validator) {
+        try {
+            return validator.apply(toEntity(row, type));
+        } catch (IllegalArgumentException ex) {
+            return rootMessage(ex);
+        }
+    }
+
+    private <T> T toEntity(Row row, Class<T> type) {
+        Map<String, Object> values = new HashMap<>(row.values());
+        // Ids are always generated
+        values.remove("id");
+        return objectMapper.convertValue(values, type);
+    }
+
+    private void reject(BulkImportRes result, int rowNumber, String message) {
+        result.setFailedRows(result.getFailedRows() + 1);
+        if (result.getErrors().size() < maxReportedErrors) {
+            result.getErrors().add(new BulkImportRes.RowError(rowNumber, message));
+        }
+    }
+
+    private boolean isCsv(String contentType) {
+        return contentType != null && MediaType.parseMediaType(contentType).isCompatibleWith(MediaType.parseMediaType(CSV_VALUE));
+    }
+
+    private RowSource ndjsonRows(BufferedReader reader) {
+        int[] number = {0};
+        return () -> {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                number[0]++;
+                try {
+                    return new Row(number[0], rowReader.readValue(line), null);
+                } catch (JsonProcessingException ex) {
+                    return new Row(number[0], null, "Invalid JSON: " + ex.getOriginalMessage());
+                }
+            }
+            return null;
+        };
+    }
+
+    private RowSource csvRows(CsvReader csv) throws IOException {
+        List<String> header = csv.readRecord();
+        int[] number = {0};
+        return () -> {
+            List<String> record;
+            while ((record = csv.readRecord()) != null) {
+                if (record.size() == 1 && record.get(0).isBlank()) {
+                    continue;
+                }
+                number[0]++;
+                if (header == null || record.size() != header.size()) {
+                    return new Row(number[0], null, "Expected " + (header != null ? header.size() : 0)
+                            + " columns but found " + record.size());
+                }
+                Map<String, Object> values = new HashMap<>();
+                for (int i = 0; i < header.size(); i++) {
+                    // An empty cell means no value
+                    values.put(header.get(i).trim(), record.get(i).isEmpty() ? null : record.get(i));
+                }
+                return new Row(number[0], values, null);
+            }
+            return null;
+        };
+    }
+
+    private static String rootMessage(Throwable ex) {
+        Throwable cause = ex;
+        while (cause.getCause() != null && cause.getCause() != cause) {
+            cause = cause.getCause();
+        }
+        return cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+    }
+
+    private record Row(int number, Map<String, Object> values, String error) {
+    }
+
+    @FunctionalInterface
+    private interface RowSource {
+        Row next() throws IOException;
+    }
+}
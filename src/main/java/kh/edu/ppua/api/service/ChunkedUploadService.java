@@ -0,0 +1,340 @@
+package kh.edu.ppua.api.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import kh.edu.ppua.api.dto.ChunkedUploadReq;
+import kh.edu.ppua.api.dto.ChunkedUploadRes;
+import kh.edu.ppua.api.dto.FileUploadReq;
+import kh.edu.ppua.api.exception.FileStorageException;
+import kh.edu.ppua.api.exception.ResourceNotFoundException;
+import kh.edu.ppua.api.model.FileEntity;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Resumable uploads: a session is created up front, chunks are written at their offsets in
+ * any order, and the file is only moved into storage and recorded once every chunk is present.
+ * <p>
+ * Each session is a directory under {@code <upload-dir>/.sessions/<uploadId>} holding the session
+ * metadata, a sparse data file written with positional writes and one marker byte per chunk.
+ * Sessions that receive no chunk for {@code file.chunked.session-ttl} are removed.
+ */
+@Service
+public class ChunkedUploadService {
+
+    private static final String SESSION_DIRECTORY = ".sessions";
+    private static final String SESSION_FILE = "session.json";
+    private static final String DATA_FILE = "data.part";
+    private static final String CHUNKS_FILE = "chunks.bin";
+    private static final int LOCK_STRIPES = 256;
+
+    @Value("${file.allowed-extensions:jpg,jpeg,png,gif,pdf,doc,docx}")
+    private String[] allowedExtensions;
+
+    @Value("${file.chunked.max-file-size:2147483648}") // 2GB default
+    private long maxFileSize;
+
+    @Value("${file.chunked.chunk-size:8388608}") // 8MB default
+    private int chunkSize;
+
+    @Value("${file.chunked.session-ttl:PT24H}")
+    private Duration sessionTtl;
+
+    private final FileUploadService fileUploadService;
+    private final FileStorageService fileStorageService;
+    private final ObjectMapper objectMapper;
+    private final Path sessionLocation;
+    // Striped by upload ID, so IDs that clients make up cannot grow a lock map
+    private final ReadWriteLock[] sessionLocks = new ReadWriteLock[LOCK_STRIPES];
+
+    @Autowired
+    public ChunkedUploadService(FileUploadService fileUploadService, FileStorageService fileStorageService,
+                                ObjectMapper objectMapper) {
+        this.fileUploadService = fileUploadService;
+        this.fileStorageService = fileStorageService;
+        this.objectMapper = objectMapper;
+        this.sessionLocation = Paths.get(fileStorageService.getFileStoragePath(SESSION_DIRECTORY));
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            sessionLocks[i] = new ReentrantReadWriteLock();
+        }
+
+        try {
+            Files.createDirectories(this.sessionLocation);
+        } catch (IOException ex) {
+            throw new FileStorageException("Could not create the directory for upload sessions.", ex);
+        }
+    }
+
+    public ChunkedUploadRes createSession(ChunkedUploadReq request) {
+        if (request.getFileName() == null || request.getFileName().isBlank()) {
+            throw new FileStorageException("File name is required.");
+        }
+        if (request.getTotalSize() == null || request.getTotalSize() <= 0) {
+            throw new FileStorageException("Failed to store empty file.");
+        }
+        if (request.getTotalSize() > maxFileSize) {
+            throw new FileStorageException("File size exceeds the maximum allowed size.");
+        }
+        fileStorageService.validateFileName(request.getFileName(), allowedExtensions);
+
+        UploadSession session = new UploadSession(UUID.randomUUID().toString(), request.getFileName(),
+                request.getContentType(), request.getTotalSize(), chunkSize, request.getDescription(),
+                request.getCategory(), request.getEntityId(), request.getEntityType(), LocalDateTime.now());
+
+        Path directory = sessionLocation.resolve(session.uploadId());
+        byte[] chunks = new byte[session.chunkCount()];
+        try {
+            Files.createDirectories(directory);
+            objectMapper.writeValue(directory.resolve(SESSION_FILE).toFile(), session);
+            Files.write(directory.resolve(CHUNKS_FILE), chunks);
+
+            // Pre-size the (sparse) data file so chunks can be written at any offset
+            try (RandomAccessFile data = new RandomAccessFile(directory.resolve(DATA_FILE).toFile(), "rw")) {
+                data.setLength(session.totalSize());
+            }
+        } catch (IOException ex) {
+            FileSystemUtils.deleteRecursively(directory.toFile());
+            throw new FileStorageException("Could not create upload session for " + request.getFileName(), ex);
+        }
+
+        return toResponse(session, chunks, directory);
+    }
+
+    public ChunkedUploadRes getStatus(String uploadId) {
+        Lock lock = lockFor(uploadId).readLock();
+        lock.lock();
+        try {
+            Path directory = sessionDirectory(uploadId);
+            return toResponse(readSession(directory), readChunks(directory), directory);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes one chunk at {@code offset}. Offsets must be multiples of the session's chunk size and
+     * every chunk except the last must be exactly one chunk size long. Re-sending a chunk overwrites it.
+     */
+    public ChunkedUploadRes writeChunk(String uploadId, long offset, InputStream body) {
+        Lock lock = lockFor(uploadId).readLock();
+        lock.lock();
+        try {
+            Path directory = sessionDirectory(uploadId);
+            UploadSession session = readSession(directory);
+
+            if (offset < 0 || offset >= session.totalSize() || offset % session.chunkSize() != 0) {
+                throw new FileStorageException("Chunk offset must be a multiple of " + session.chunkSize()
+                        + " below " + session.totalSize());
+            }
+            long expected = Math.min(session.chunkSize(), session.totalSize() - offset);
+            int chunkIndex = (int) (offset / session.chunkSize());
+
+            try (FileChannel data = FileChannel.open(directory.resolve(DATA_FILE), StandardOpenOption.WRITE)) {
+                ReadableByteChannel source = Channels.newChannel(body);
+                long written = 0;
+                while (written < expected) {
+                    long transferred = data.transferFrom(source, offset + written, expected - written);
+                    if (transferred <= 0) {
+                        break;
+                    }
+                    written += transferred;
+                }
+                if (written < expected) {
+                    throw new FileStorageException("Incomplete chunk: expected " + expected
+                            + " bytes but received " + written);
+                }
+                if (body.read() != -1) {
+                    throw new FileStorageException("Chunk exceeds the expected size of " + expected + " bytes");
+                }
+            }
+
+            // Only mark the chunk once its bytes are in place
+            try (FileChannel chunks = FileChannel.open(directory.resolve(CHUNKS_FILE), StandardOpenOption.WRITE)) {
+                chunks.write(ByteBuffer.wrap(new byte[]{1}), chunkIndex);
+            }
+
+            return toResponse(session, readChunks(directory), directory);
+        } catch (IOException ex) {
+            throw new FileStorageException("Could not write chunk at offset " + offset + " of upload " + uploadId, ex);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public FileEntity completeSession(String uploadId) {
+        Lock lock = lockFor(uploadId).writeLock();
+        lock.lock();
+        try {
+            Path directory = sessionDirectory(uploadId);
+            UploadSession session = readSession(directory);
+
+            List<Integer> missingChunks = missingChunks(readChunks(directory));
+            if (!missingChunks.isEmpty()) {
+                throw new FileStorageException("Upload " + uploadId + " is incomplete, missing chunks: " + missingChunks);
+            }
+
+            FileUploadReq uploadRequest = new FileUploadReq();
+            uploadRequest.setDescription(session.description());
+            uploadRequest.setCategory(session.category());
+            uploadRequest.setEntityId(session.entityId());
+            uploadRequest.setEntityType(session.entityType());
+
+            FileEntity fileEntity = fileUploadService.uploadFile(directory.resolve(DATA_FILE),
+                    session.originalFileName(), session.contentType(), uploadRequest);
+
+            // Only now that the record is committed; if it failed, the assembled file is still here to retry
+            FileSystemUtils.deleteRecursively(directory.toFile());
+            return fileEntity;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void abortSession(String uploadId) {
+        Lock lock = lockFor(uploadId).writeLock();
+        lock.lock();
+        try {
+            FileSystemUtils.deleteRecursively(sessionDirectory(uploadId).toFile());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${file.chunked.cleanup-interval:PT1H}")
+    public void removeExpiredSessions() {
+        Instant cutoff = Instant.now().minus(sessionTtl);
+
+        try (DirectoryStream<Path> directories = Files.newDirectoryStream(sessionLocation, Files::isDirectory)) {
+            for (Path directory : directories) {
+                if (lastActivity(directory).isAfter(cutoff)) {
+                    continue;
+                }
+                String uploadId = directory.getFileName().toString();
+                Lock lock = lockFor(uploadId).writeLock();
+                // Sessions that are being written to are not abandoned
+                if (lock.tryLock()) {
+                    try {
+                        FileSystemUtils.deleteRecursively(directory.toFile());
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+            }
+        } catch (IOException ex) {
+            throw new FileStorageException("Could not clean up expired upload sessions.", ex);
+        }
+    }
+
+    private ReadWriteLock lockFor(String uploadId) {
+        return sessionLocks[Math.floorMod(uploadId.hashCode(), LOCK_STRIPES)];
+    }
+
+    private Path sessionDirectory(String uploadId) {
+        try {
+            UUID.fromString(uploadId);
+        } catch (IllegalArgumentException ex) {
+            throw new ResourceNotFoundException("Upload session", "uploadId", uploadId);
+        }
+        Path directory = sessionLocation.resolve(uploadId);
+        if (!Files.isDirectory(directory)) {
+            throw new ResourceNotFoundException("Upload session", "uploadId", uploadId);
+        }
+        return directory;
+    }
+
+    private UploadSession readSession(Path directory) {
+        try {
+            return objectMapper.readValue(directory.resolve(SESSION_FILE).toFile(), UploadSession.class);
+        } catch (IOException ex) {
+            throw new FileStorageException("Could not read upload session " + directory.getFileName(), ex);
+        }
+    }
+
+    private byte[] readChunks(Path directory) {
+        try {
+            return Files.readAllBytes(directory.resolve(CHUNKS_FILE));
+        } catch (IOException ex) {
+            throw new FileStorageException("Could not read upload session " + directory.getFileName(), ex);
+        }
+    }
+
+    private Instant lastActivity(Path directory) {
+        try {
+            Path data = directory.resolve(DATA_FILE);
+            return Files.getLastModifiedTime(Files.exists(data) ? data : directory).toInstant();
+        } catch (IOException ex) {
+            return Instant.EPOCH;
+        }
+    }
+
+    private List<Integer> missingChunks(byte[] chunks) {
+        List<Integer> missing = new ArrayList<>();
+        for (int i = 0; i < chunks.length; i++) {
+            if (chunks[i] == 0) {
+                missing.add(i);
+            }
+        }
+        return missing;
+    }
+
+    private ChunkedUploadRes toResponse(UploadSession session, byte[] chunks, Path directory) {
+        List<Integer> missing = missingChunks(chunks);
+        long lastChunkSize = session.totalSize() - (long) (chunks.length - 1) * session.chunkSize();
+
+        long receivedBytes = 0;
+        for (int i = 0; i < chunks.length; i++) {
+            if (chunks[i] != 0) {
+                receivedBytes += i == chunks.length - 1 ? lastChunkSize : session.chunkSize();
+            }
+        }
+        long offset = missing.isEmpty()
+                ? session.totalSize()
+                : (long) missing.get(0) * session.chunkSize();
+
+        return ChunkedUploadRes.builder()
+                .uploadId(session.uploadId())
+                .fileName(session.originalFileName())
+                .totalSize(session.totalSize())
+                .chunkSize(session.chunkSize())
+                .receivedBytes(receivedBytes)
+                .offset(offset)
+                .missingChunks(missing)
+                .complete(missing.isEmpty())
+                .expiresAt(LocalDateTime.ofInstant(lastActivity(directory).plus(sessionTtl), ZoneId.systemDefault()))
+                .build();
+    }
+
+    record UploadSession(String uploadId, String originalFileName, String contentType, long totalSize,
+                         int chunkSize, String description, String category, Long entityId, String entityType,
+                         LocalDateTime createdAt) {
+
+        int chunkCount() {
+            return (int) ((totalSize + chunkSize - 1) / chunkSize);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package kh.edu.ppua.api.service;
+
+import kh.edu.ppua.api.dto.FacultySuggestionRes;
+import kh.edu.ppua.api.model.FacultyEntity;
+import kh.edu.ppua.api.repository.FacultyRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Prefix index over faculty name, Khmer name and email for typeahead lookups.
+ * <p>
+ * Every searchable key is kept in one sorted array, so a lookup is a binary search for the
+ * first key with the prefix followed by a short scan. Each field is indexed as a whole and
+ * from the start of every word in it, so "arts" finds "Faculty of Fine Arts". Readers use an
+ * immutable snapshot without locking; {@link FacultyService} writes replace only the keys
+ * of the faculty that changed.
+ */
+@Service
+public class FacultyAutocompleteService {
+
+    // Matches at the start of a field rank above matches at the start of a later word
+    private static final int FIELD_START = 0;
+    private static final int WORD_START = 1;
+
+    private final FacultyRepository repository;
+    private volatile Snapshot snapshot = new Snapshot(new Key[0], Map.of());
+
+    @Autowired
+    public FacultyAutocompleteService(FacultyRepository repository) {
+        this.repository = repository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        Map<Long, FacultySuggestionRes> faculties = new HashMap<>();
+        List<Key> keys = new ArrayList<>();
+        for (FacultyEntity faculty : repository.findAll()) {
+            faculties.put(faculty.getId(), toSuggestion(faculty));
+            addKeys(faculty, keys);
+        }
+        Key[] sorted = keys.toArray(new Key[0]);
+        Arrays.sort(sorted);
+        snapshot = new Snapshot(sorted, faculties);
+    }
+
+    public synchronized void put(FacultyEntity faculty) {
+        Snapshot current = snapshot;
+        List<Key> keys = new ArrayList<>(current.keys().length + 8);
+        for (Key key : current.keys()) {
+            if (!key.facultyId().equals(faculty.getId())) {
+                keys.add(key);
+            }
+        }
+        addKeys(faculty, keys);
+
+        Key[] sorted = keys.toArray(new Key[0]);
+        Arrays.sort(sorted);
+        Map<Long, FacultySuggestionRes> faculties = new HashMap<>(current.faculties());
+        faculties.put(faculty.getId(), toSuggestion(faculty));
+        snapshot = new Snapshot(sorted, faculties);
+    }
+
+    public synchronized void remove(Long id) {
+        Snapshot current = snapshot;
+        Key[] keys = Arrays.stream(current.keys())
+                .filter(key -> !key.facultyId().equals(id))
+                .toArray(Key[]::new);
+        Map<Long, FacultySuggestionRes> faculties = new HashMap<>(current.faculties());
+        faculties.remove(id);
+        snapshot = new Snapshot(keys, faculties);
+    }
+
+    /**
+     * Returns up to {@code limit} faculties with a field or word starting with {@code prefix}.
+     */
+    public List<FacultySuggestionRes> suggest(String prefix, int limit) {
+        String normalizedPrefix = normalize(prefix);
+        if (normalizedPrefix.isEmpty() || limit < 1) {
+            return List.of();
+        }
+
+        Snapshot current = snapshot;
+        Key[] keys = current.keys();
+        int index = lowerBound(keys, normalizedPrefix);
+
+        // Best rank per faculty among all keys that carry the prefix
+        Map<Long, Integer> ranks = new LinkedHashMap<>();
+        while (index < keys.length && keys[index].text().startsWith(normalizedPrefix)) {
+            ranks.merge(keys[index].facultyId(), keys[index].rank(), Math::min);
+            index++;
+        }
+
+        return ranks.entrySet().stream()
+                .sorted(Map.Entry.<Long, Integer>comparingByValue()
+                        .thenComparing(entry -> current.faculties().get(entry.getKey()).getName(),
+                                Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER)))
+                .limit(limit)
+                .map(entry -> current.faculties().get(entry.getKey()))
+                .toList();
+    }
+
+    private static int lowerBound(Key[] keys, String prefix) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (keys[middle].text().compareTo(prefix) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static void addKeys(FacultyEntity faculty, List<Key> keys) {
+        for (String field : new String[]{faculty.getName(), faculty.getNameKh(), faculty.getEmail()}) {
+            String text = normalize(field);
+            if (text.isEmpty()) {
+                continue;
+            }
+            keys.add(new Key(text, faculty.getId(), FIELD_START));
+            for (int i = 1; i < text.length(); i++) {
+                if (!isWordCharacter(text.charAt(i - 1)) && isWordCharacter(text.charAt(i))) {
+                    keys.add(new Key(text.substring(i), faculty.getId(), WORD_START));
+                }
+            }
+        }
+    }
+
+    // Khmer vowel signs are combining marks and belong to the word they follow
+    private static boolean isWordCharacter(char c) {
+        int type = Character.getType(c);
+        return Character.isLetterOrDigit(c) || type == Character.NON_SPACING_MARK
+                || type == Character.COMBINING_SPACING_MARK;
+    }
+
+    private static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return Normalizer.normalize(text, Normalizer.Form.NFKC).strip().toLowerCase(Locale.ROOT);
+    }
+
+    private static FacultySuggestionRes toSuggestion(FacultyEntity faculty) {
+        return FacultySuggestionRes.builder()
+                .id(faculty.getId())
+                .name(faculty.getName())
+                .nameKh(faculty.getNameKh())
+                .email(faculty.getEmail())
+                .build();
+    }
+
+    private record Key(String text, Long facultyId, int rank) implements Comparable<Key> {
+
+        @Override
+        public int compareTo(Key other) {
+            return text.compareTo(other.text);
+        }
+    }
+
+    private record Snapshot(Key[] keys, Map<Long, FacultySuggestionRes> faculties) {
+    }
+}
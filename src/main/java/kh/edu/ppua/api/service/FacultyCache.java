@@ -0,0 +1,74 @@
+package kh.edu.ppua.api.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import kh.edu.ppua.api.config.CacheConfig;
+import kh.edu.ppua.api.dto.CursorPageRes;
+import kh.edu.ppua.api.model.FacultyEntity;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Faculty reads: single faculty by ID, the full list and cursor pages.
+ * <p>
+ * Like {@link NewsResponseCache}, entries are keyed by a data version that {@link FacultyService}
+ * bumps after every write has committed, so a read that loaded rows before the write can only
+ * store them under a version that is no longer read. Entries hold copies, and every read hands
+ * out fresh ones, so a caller that changes a faculty does not change what other requests get.
+ */
+@Component
+public class FacultyCache {
+
+    private final Cache<Object, Object> faculties;
+    private final Cache<Object, Object> lists;
+    private final Cache<Object, Object> pages;
+
+    // Seeded with the start time so versions from before a restart are never reused
+    private final AtomicLong version = new AtomicLong(System.currentTimeMillis());
+
+    @Autowired
+    public FacultyCache(CacheManager cacheManager) {
+        this.faculties = ((CaffeineCache) cacheManager.getCache(CacheConfig.FACULTY)).getNativeCache();
+        this.lists = ((CaffeineCache) cacheManager.getCache(CacheConfig.FACULTY_LIST)).getNativeCache();
+        this.pages = ((CaffeineCache) cacheManager.getCache(CacheConfig.FACULTY_PAGES)).getNativeCache();
+    }
+
+    // Missing faculty are not cached
+    public Optional<FacultyEntity> get(Long id, Supplier<Optional<FacultyEntity>> loader) {
+        FacultyEntity cached = (FacultyEntity) faculties.get(version.get() + ":" + id,
+                key -> loader.get().map(FacultyCache::copy).orElse(null));
+        return Optional.ofNullable(cached).map(FacultyCache::copy);
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<FacultyEntity> getAll(Supplier<List<FacultyEntity>> loader) {
+        List<FacultyEntity> cached = (List<FacultyEntity>) lists.get(version.get(),
+                key -> loader.get().stream().map(FacultyCache::copy).toList());
+        return cached.stream().map(FacultyCache::copy).toList();
+    }
+
+    @SuppressWarnings("unchecked")
+    public CursorPageRes<FacultyEntity> getPage(String cursor, int size, Supplier<CursorPageRes<FacultyEntity>> loader) {
+        CursorPageRes<FacultyEntity> cached = (CursorPageRes<FacultyEntity>) pages.get(
+                version.get() + ":" + cursor + ":" + size, key -> loader.get().map(FacultyCache::copy));
+        return cached.map(FacultyCache::copy);
+    }
+
+    public void invalidate() {
+        version.incrementAndGet();
+        faculties.invalidateAll();
+        lists.invalidateAll();
+        pages.invalidateAll();
+    }
+
+    private static FacultyEntity copy(FacultyEntity faculty) {
+        return new FacultyEntity(faculty.getId(), faculty.getName(), faculty.getNameKh(), faculty.getEmail(),
+                faculty.getPhone(), faculty.getUpdatedAt());
+    }
+}
@@ -1,32 +1,102 @@
 package kh.edu.ppua.api.service;
 
+import kh.edu.ppua.api.config.PaginationConfig;
+import kh.edu.ppua.api.dto.BulkImportRes;
+import kh.edu.ppua.api.dto.CursorPageRes;
+import kh.edu.ppua.api.dto.FacultySuggestionRes;
+import kh.edu.ppua.api.dto.SyncRes;
 import kh.edu.ppua.api.model.FacultyEntity;
 import kh.edu.ppua.api.repository.FacultyRepository;
+import kh.edu.ppua.api.util.PageCursor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 import java.util.Optional;
 
 @Service
 public class FacultyService {
 
+    private static final int DEFAULT_SUGGESTIONS = 10;
+    private static final int MAX_SUGGESTIONS = 50;
+
     @Autowired
     private FacultyRepository repository;
 
+    @Autowired
+    private PaginationConfig paginationConfig;
+
+    @Autowired
+    private FacultyAutocompleteService autocompleteService;
+
+    @Autowired
+    private BulkImportService importService;
+
+    @Autowired
+    private FacultyCache facultyCache;
+
+    @Autowired
+    private SyncService syncService;
+
     // Get all faculty
     public List<FacultyEntity> getAllFaculties() {
-        return repository.findAll();
+        return facultyCache.getAll(repository::findAll);
+    }
+
+    // Get one page of faculty, in id order
+    public CursorPageRes<FacultyEntity> getFacultyPage(String cursor, Integer size) {
+        int pageSize = paginationConfig.resolvePageSize(size);
+        return facultyCache.getPage(cursor, pageSize, () -> {
+            PageCursor after = PageCursor.decode(cursor, PageCursor.FIRST_ID);
+            List<FacultyEntity> rows = repository.findByIdGreaterThanOrderByIdAsc(after.id(), Limit.of(pageSize + 1));
+            return CursorPageRes.of(rows, pageSize, faculty -> new PageCursor(null, faculty.getId()));
+        });
+    }
+
+    // Faculty created, updated or deleted after the token; every faculty when there is no token
+    public SyncRes<FacultyEntity> syncFaculties(String since) {
+        return syncService.sync(SyncService.FACULTY, since, repository::findAll, repository::findChangedBetween);
+    }
+
+    // Typeahead over name, Khmer name and email
+    public List<FacultySuggestionRes> autocomplete(String prefix, Integer limit) {
+        return autocompleteService.suggest(prefix, Math.min(limit != null ? limit : DEFAULT_SUGGESTIONS, MAX_SUGGESTIONS));
     }
 
     // Get faculty by ID
     public Optional<FacultyEntity> getFacultyById(Long id) {
-        return repository.findById(id);
+        return facultyCache.get(id, () -> repository.findById(id));
     }
 
     // Create faculty
     public FacultyEntity createFaculty(FacultyEntity faculty) {
-        return repository.save(faculty);
+        FacultyEntity saved = repository.save(faculty);
+        facultyCache.invalidate();
+        autocompleteService.put(saved);
+        return saved;
+    }
+
+    // Import faculty from NDJSON or CSV; rows that fail are reported and skipped. The cache is
+    // also invalidated when the import breaks off after committing rows
+    public BulkImportRes importFaculties(InputStream input, String contentType, Integer batchSize) throws IOException {
+        return importService.importRows(input, contentType, FacultyEntity.class,
+                FacultyService::validateImport, batchSize, () -> {
+                    facultyCache.invalidate();
+                    autocompleteService.rebuild();
+                });
+    }
+
+    private static String validateImport(FacultyEntity faculty) {
+        if (faculty.getName() == null || faculty.getName().isBlank()) {
+            return "name is required";
+        }
+        if (faculty.getNameKh() == null || faculty.getNameKh().isBlank()) {
+            return "nameKh is required";
+        }
+        return null;
     }
 
     // Update faculty
@@ -37,11 +107,16 @@ public class FacultyService {
         faculty.setNameKh(facultyDetails.getNameKh());
         faculty.setEmail(facultyDetails.getEmail());
         faculty.setPhone(facultyDetails.getPhone());
-        return repository.save(faculty);
+        FacultyEntity saved = repository.save(faculty);
+        facultyCache.invalidate();
+        autocompleteService.put(saved);
+        return saved;
     }
 
     // Delete faculty
     public void deleteFaculty(Long id) {
-        repository.deleteById(id);
+        syncService.delete(SyncService.FACULTY, id, repository::deleteById);
+        facultyCache.invalidate();
+        autocompleteService.remove(id);
     }
 }
\ No newline at end of file
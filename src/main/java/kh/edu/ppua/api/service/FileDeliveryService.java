@@ -0,0 +1,342 @@
+package kh.edu.ppua.api.service;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import kh.edu.ppua.api.exception.FileStorageException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes stored files to the HTTP response with support for byte ranges
+ * ({@code Range} / {@code If-Range}, single and multipart/byteranges).
+ * <p>
+ * Stored files never change once written (every upload gets a fresh UUID name), so
+ * responses carry a content-hash {@code ETag}, {@code Last-Modified} and an immutable
+ * {@code Cache-Control}, and conditional requests are answered before the file is opened.
+ * <p>
+ * When running on Tomcat with sendfile enabled, whole files and single ranges are
+ * handed to the connector so the bytes go from the page cache to the socket without
+ * passing through the heap. Otherwise bodies of at least {@code file.async-delivery.min-size} release the
+ * request thread and are written with non-blocking servlet I/O as the client's socket becomes writable
+ * (see {@link AsyncFileTransfer}); smaller ones, or all when async delivery is disabled, are streamed with
+ * {@link FileChannel#transferTo}. Files kept in the
+ * {@link PackFileStore} are served the same way, as a region of their pack segment.
+ */
+@Service
+public class FileDeliveryService {
+
+    // Tomcat request attributes used to delegate the body to the connector's sendfile support
+    private static final String SENDFILE_SUPPORTED_ATTR = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+
+    private static final String CRLF = "\r\n";
+
+    @Value("${file.sendfile-min-size:49152}") // same default as Tomcat's DefaultServlet
+    private long sendfileMinSize;
+
+    @Value("${file.cache-max-age:31536000}") // one year
+    private long cacheMaxAge;
+
+    @Value("${file.async-delivery.enabled:true}")
+    private boolean asyncDeliveryEnabled;
+
+    // Smaller bodies fit the socket buffers, so writing them directly costs less than going async
+    @Value("${file.async-delivery.min-size:49152}")
+    private long asyncMinSize;
+
+    @Value("${file.async-delivery.write-timeout:60s}") // abandon a transfer when the client accepts nothing for this long
+    private Duration writeTimeout;
+
+    private final FileMetrics fileMetrics;
+    private final TaskScheduler taskScheduler;
+
+    @Autowired
+    public FileDeliveryService(FileMetrics fileMetrics, TaskScheduler taskScheduler) {
+        this.fileMetrics = fileMetrics;
+        this.taskScheduler = taskScheduler;
+    }
+
+    /**
+     * Sets the validator and caching headers and evaluates the conditional request headers.
+     *
+     * @param etag         content hash of the file, or {@code null} for files stored before hashing
+     * @param lastModified upload time in epoch milliseconds
+     * @return {@code true} if a 304 (or 412) response has been prepared and nothing else should be written
+     */
+    public boolean checkNotModified(String etag, long lastModified,
+                                    HttpServletRequest request, HttpServletResponse response) {
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.maxAge(cacheMaxAge, TimeUnit.SECONDS)
+                .cachePublic()
+                .immutable()
+                .getHeaderValue());
+        return new ServletWebRequest(request, response).checkNotModified(etag, lastModified);
+    }
+
+    public long serve(Path filePath, String contentType, String contentDisposition, String etag, long lastModified,
+                      HttpServletRequest request, HttpServletResponse response) throws IOException {
+        StoredContent content;
+        try {
+            content = StoredContent.of(filePath);
+        } catch (IOException ex) {
+            throw new FileStorageException("File not found " + filePath.getFileName(), ex);
+        }
+        return serve(content, contentType, contentDisposition, etag, lastModified, request, response);
+    }
+
+    /**
+     * Serves a whole file or, for packed files, a region of a pack segment.
+     *
+     * @return the number of body bytes sent, or handed to the connector with sendfile
+     */
+    public long serve(StoredContent content, String contentType, String contentDisposition, String etag,
+                      long lastModified, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Path filePath = content.path();
+        long base = content.offset();
+        long length = content.length();
+
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, contentDisposition);
+
+        List<ByteRegion> regions = resolveRanges(request, length, etag, lastModified);
+        boolean headRequest = HttpMethod.HEAD.matches(request.getMethod());
+
+        if (regions == null) {
+            response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+            return 0;
+        }
+
+        if (regions.isEmpty()) {
+            response.setStatus(HttpServletResponse.SC_OK);
+            response.setContentType(contentType);
+            response.setContentLengthLong(length);
+            if (!headRequest) {
+                writeRegion(filePath, base, length, request, response);
+            }
+            return headRequest ? 0 : length;
+        }
+
+        response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+
+        if (regions.size() == 1) {
+            ByteRegion region = regions.get(0);
+            response.setContentType(contentType);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, region.contentRange(length));
+            response.setContentLengthLong(region.count());
+            if (!headRequest) {
+                writeRegion(filePath, base + region.start(), region.count(), request, response);
+            }
+            return headRequest ? 0 : region.count();
+        }
+
+        return writeMultipart(filePath, base, contentType, length, regions, headRequest, request, response);
+    }
+
+    /**
+     * Returns an empty list when the whole file should be sent, the satisfiable ranges
+     * otherwise, or {@code null} when none of the requested ranges can be satisfied.
+     */
+    private List<ByteRegion> resolveRanges(HttpServletRequest request, long length, String etag, long lastModified) {
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader == null || !isRangeApplicable(request, etag, lastModified)) {
+            return List.of();
+        }
+
+        List<HttpRange> httpRanges;
+        try {
+            httpRanges = HttpRange.parseRanges(rangeHeader);
+        } catch (IllegalArgumentException ex) {
+            // Malformed Range headers are ignored and the full representation is sent
+            return List.of();
+        }
+
+        List<ByteRegion> regions = new ArrayList<>();
+        for (HttpRange httpRange : httpRanges) {
+            long start = httpRange.getRangeStart(length);
+            long end = httpRange.getRangeEnd(length);
+            if (start < length && start <= end) {
+                regions.add(new ByteRegion(start, end));
+            }
+        }
+        if (regions.isEmpty()) {
+            return null;
+        }
+        return coalesce(regions);
+    }
+
+    private boolean isRangeApplicable(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("W/")) {
+            // If-Range requires a strong comparison
+            return false;
+        }
+        if (ifRange.startsWith("\"")) {
+            return etag != null && ifRange.equals("\"" + etag + "\"");
+        }
+        try {
+            long ifRangeDate = request.getDateHeader(HttpHeaders.IF_RANGE);
+            return ifRangeDate != -1 && ifRangeDate / 1000 == lastModified / 1000;
+        } catch (IllegalArgumentException ex) {
+            return false;
+        }
+    }
+
+    private List<ByteRegion> coalesce(List<ByteRegion> regions) {
+        if (regions.size() == 1) {
+            return regions;
+        }
+        regions.sort(Comparator.comparingLong(ByteRegion::start));
+        List<ByteRegion> merged = new ArrayList<>();
+        ByteRegion current = regions.get(0);
+        for (int i = 1; i < regions.size(); i++) {
+            ByteRegion next = regions.get(i);
+            if (next.start() <= current.end() + 1) {
+                current = new ByteRegion(current.start(), Math.max(current.end(), next.end()));
+            } else {
+                merged.add(current);
+                current = next;
+            }
+        }
+        merged.add(current);
+        return merged;
+    }
+
+    private void writeRegion(Path filePath, long position, long count,
+                             HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (useSendfile(request, count)) {
+            request.setAttribute(SENDFILE_FILENAME_ATTR, filePath.toAbsolutePath().normalize().toString());
+            request.setAttribute(SENDFILE_START_ATTR, position);
+            request.setAttribute(SENDFILE_END_ATTR, position + count);
+            return;
+        }
+
+        if (useAsync(request, count)) {
+            writeAsync(filePath, List.of(AsyncFileTransfer.Segment.region(position, count)), request);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(response.getOutputStream());
+            transfer(channel, position, count, target);
+        }
+    }
+
+    private long writeMultipart(Path filePath, long base, String contentType, long length, List<ByteRegion> regions,
+                                boolean headRequest, HttpServletRequest request,
+                                HttpServletResponse response) throws IOException {
+        String boundary = MimeTypeUtils.generateMultipartBoundaryString();
+
+        List<byte[]> partHeaders = new ArrayList<>(regions.size());
+        long contentLength = 0;
+        for (ByteRegion region : regions) {
+            byte[] partHeader = (CRLF + "--" + boundary + CRLF
+                    + HttpHeaders.CONTENT_TYPE + ": " + contentType + CRLF
+                    + HttpHeaders.CONTENT_RANGE + ": " + region.contentRange(length) + CRLF
+                    + CRLF).getBytes(StandardCharsets.US_ASCII);
+            partHeaders.add(partHeader);
+            contentLength += partHeader.length + region.count();
+        }
+        byte[] closingBoundary = (CRLF + "--" + boundary + "--" + CRLF).getBytes(StandardCharsets.US_ASCII);
+        contentLength += closingBoundary.length;
+
+        response.setContentType("multipart/byteranges; boundary=" + boundary);
+        response.setContentLengthLong(contentLength);
+        if (headRequest) {
+            return 0;
+        }
+
+        if (useAsync(request, contentLength)) {
+            List<AsyncFileTransfer.Segment> segments = new ArrayList<>(regions.size() * 2 + 1);
+            for (int i = 0; i < regions.size(); i++) {
+                segments.add(AsyncFileTransfer.Segment.of(partHeaders.get(i)));
+                segments.add(AsyncFileTransfer.Segment.region(base + regions.get(i).start(), regions.get(i).count()));
+            }
+            segments.add(AsyncFileTransfer.Segment.of(closingBoundary));
+            writeAsync(filePath, segments, request);
+            return contentLength;
+        }
+
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            var outputStream = response.getOutputStream();
+            WritableByteChannel target = Channels.newChannel(outputStream);
+            for (int i = 0; i < regions.size(); i++) {
+                ByteRegion region = regions.get(i);
+                outputStream.write(partHeaders.get(i));
+                transfer(channel, base + region.start(), region.count(), target);
+            }
+            outputStream.write(closingBoundary);
+        }
+        return contentLength;
+    }
+
+    private boolean useAsync(HttpServletRequest request, long count) {
+        return asyncDeliveryEnabled && count >= asyncMinSize && request.isAsyncSupported();
+    }
+
+    private void writeAsync(Path filePath, List<AsyncFileTransfer.Segment> segments,
+                            HttpServletRequest request) throws IOException {
+        FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ);
+        try {
+            AsyncContext asyncContext = request.startAsync();
+            // The write timeout below replaces the container's overall async timeout
+            asyncContext.setTimeout(0);
+            new AsyncFileTransfer(asyncContext, channel, segments, fileMetrics, taskScheduler, writeTimeout).start();
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    private boolean useSendfile(HttpServletRequest request, long count) {
+        return count >= sendfileMinSize && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED_ATTR));
+    }
+
+    private void transfer(FileChannel channel, long position, long count, WritableByteChannel target) throws IOException {
+        while (count > 0) {
+            long transferred = channel.transferTo(position, count, target);
+            if (transferred <= 0) {
+                throw new IOException("Unexpected end of file at position " + position);
+            }
+            position += transferred;
+            count -= transferred;
+        }
+    }
+
+    private record ByteRegion(long start, long end) {
+
+        long count() {
+            return end - start + 1;
+        }
+
+        String contentRange(long length) {
+            return "bytes " + start + "-" + end + "/" + length;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package kh.edu.ppua.api.service;
+
+import kh.edu.ppua.api.dto.FileLayoutMigrationRes;
+import kh.edu.ppua.api.model.FileEntity;
+import kh.edu.ppua.api.repository.FileRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * Moves files stored in the flat {@code <entity type>/<category>/<stored name>} layout into the
+ * sharded layout while the application keeps serving them.
+ * <p>
+ * Each batch first links every file at its sharded path, then records the new
+ * {@code storagePath} in one short transaction and evicts the cached metadata. The flat copies of a
+ * batch are removed {@code file.layout.migration.removal-delay} after it has been committed, so a
+ * download that resolved the old location just before the switch still finds the file. Copies still
+ * waiting when the application stops are left behind as orphans. {@code filePath} is not changed.
+ */
+@Service
+public class FileLayoutMigrationService {
+
+    @Value("${file.layout.migration.batch-size:500}")
+    private int defaultBatchSize;
+
+    @Value("${file.layout.migration.removal-delay:PT1M}")
+    private Duration removalDelay;
+
+    private final FileRepository fileRepository;
+    private final FileStorageService fileStorageService;
+    private final FileUploadService fileUploadService;
+    private final FileMetadataCache metadataCache;
+    private final TransactionTemplate transactionTemplate;
+    // Flat copies of migrated files, oldest first
+    private final Queue<FlatCopy> pendingRemoval = new ArrayDeque<>();
+
+    @Autowired
+    public FileLayoutMigrationService(FileRepository fileRepository, FileStorageService fileStorageService,
+                                      FileUploadService fileUploadService, FileMetadataCache metadataCache,
+                                      PlatformTransactionManager transactionManager) {
+        this.fileRepository = fileRepository;
+        this.fileStorageService = fileStorageService;
+        this.fileUploadService = fileUploadService;
+        this.metadataCache = metadataCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Migrates up to {@code maxFiles} records with an ID greater than {@code afterId}, in batches.
+     */
+    public FileLayoutMigrationRes migrate(Long afterId, Integer batchSize, int maxFiles) {
+        int size = batchSize != null && batchSize > 0 ? batchSize : defaultBatchSize;
+        long lastId = afterId != null ? afterId : 0L;
+        int processed = 0;
+        boolean exhausted = false;
+
+        FileLayoutMigrationRes result = new FileLayoutMigrationRes();
+
+        while (processed < maxFiles) {
+            List<FileEntity> batch = fileRepository.findByStoragePathIsNullAndIdGreaterThanOrderByIdAsc(
+                    lastId, Limit.of(Math.min(size, maxFiles - processed)));
+            if (batch.isEmpty()) {
+                exhausted = true;
+                break;
+            }
+            processed += batch.size();
+            lastId = batch.get(batch.size() - 1).getId();
+
+            List<FileEntity> migrated = migrateBatch(batch, result);
+            scheduleRemoval(migrated);
+            removeFlatCopies();
+        }
+
+        result.setRemainingFiles(fileRepository.countByStoragePathIsNull());
+        result.setNextAfterId(exhausted ? null : lastId);
+        return result;
+    }
+
+    private List<FileEntity> migrateBatch(List<FileEntity> batch, FileLayoutMigrationRes result) {
+        List<FileEntity> linked = new ArrayList<>(batch.size());
+        List<String> storagePaths = new ArrayList<>(batch.size());
+        for (FileEntity file : batch) {
+            String subDirectory = fileUploadService.getSubDirectory(file.getEntityType(), file.getCategory());
+            String storagePath = fileStorageService.getShardedPath(subDirectory, file.getStoredFileName());
+            try {
+                if (fileStorageService.linkToStoredPath(file.getStoredFileName(), subDirectory, storagePath)) {
+                    linked.add(file);
+                    storagePaths.add(storagePath);
+                } else {
+                    result.setMissingFiles(result.getMissingFiles() + 1);
+                }
+            } catch (RuntimeException ex) {
+                result.setFailedFiles(result.getFailedFiles() + 1);
+            }
+        }
+        if (linked.isEmpty()) {
+            return linked;
+        }
+
+        List<FileEntity> migrated = new ArrayList<>(linked.size());
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (int i = 0; i < linked.size(); i++) {
+                    FileEntity file = linked.get(i);
+                    if (fileRepository.updateStoragePath(file.getId(), storagePaths.get(i)) > 0) {
+                        migrated.add(file);
+                    } else {
+                        // Deleted (or already migrated) since the batch was read; drop the new link
+                        fileStorageService.deleteStoredPath(storagePaths.get(i));
+                    }
+                }
+                metadataCache.evictAll(linked.stream().map(FileEntity::getStoredFileName).toList());
+            });
+        } catch (RuntimeException ex) {
+            // Nothing was recorded, so the flat copies are still the ones in use
+            storagePaths.forEach(fileStorageService::deleteStoredPath);
+            result.setFailedFiles(result.getFailedFiles() + linked.size());
+            return List.of();
+        }
+
+        result.setMigratedFiles(result.getMigratedFiles() + migrated.size());
+        return migrated;
+    }
+
+    private synchronized void scheduleRemoval(List<FileEntity> migrated) {
+        long removeAfter = System.nanoTime() + removalDelay.toNanos();
+        for (FileEntity file : migrated) {
+            String subDirectory = fileUploadService.getSubDirectory(file.getEntityType(), file.getCategory());
+            pendingRemoval.add(new FlatCopy(file.getStoredFileName(), subDirectory, removeAfter));
+        }
+    }
+
+    /**
+     * Removes the flat copies whose removal delay has passed.
+     */
+    @Scheduled(fixedDelayString = "${file.layout.migration.removal-delay:PT1M}")
+    public synchronized void removeFlatCopies() {
+        long now = System.nanoTime();
+        while (!pendingRemoval.isEmpty() && pendingRemoval.peek().removeAfter() - now <= 0) {
+            FlatCopy copy = pendingRemoval.poll();
+            try {
+                fileStorageService.deleteFile(copy.storedFileName(), copy.subDirectory());
+            } catch (RuntimeException ex) {
+                // The record already points at the sharded copy; a leftover flat file is only an orphan
+            }
+        }
+    }
+
+    private record FlatCopy(String storedFileName, String subDirectory, long removeAfter) {
+    }
+}
@@ -0,0 +1,97 @@
+package kh.edu.ppua.api.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import kh.edu.ppua.api.config.CacheConfig;
+import kh.edu.ppua.api.model.FileEntity;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * File metadata by stored file name, for the download and view paths.
+ * <p>
+ * A stored file's content never changes, so entries stay until they are evicted for size, the file
+ * is deleted or moved, or {@code cache.file-metadata.spec} expires them. A lookup that overlaps an
+ * eviction does not keep what it loaded, since it may have read the row before the change
+ * committed. Names that were not found are remembered for a short time so that repeated requests
+ * for a missing file do not reach the database either.
+ */
+@Component
+public class FileMetadataCache {
+
+    private final Cache<Object, Object> entries;
+    private final Cache<Object, Object> misses;
+
+    // Bumped before every eviction
+    private final AtomicLong generation = new AtomicLong();
+
+    @Autowired
+    public FileMetadataCache(CacheManager cacheManager) {
+        this.entries = ((CaffeineCache) cacheManager.getCache(CacheConfig.FILE_METADATA)).getNativeCache();
+        this.misses = ((CaffeineCache) cacheManager.getCache(CacheConfig.FILE_METADATA_MISSES)).getNativeCache();
+    }
+
+    /**
+     * Returns the cached metadata, or loads it with {@code loader} and remembers the outcome.
+     *
+     * @return the file, or {@code null} if it does not exist
+     */
+    public FileEntity get(String storedFileName, Function<String, Optional<FileEntity>> loader) {
+        FileEntity cached = (FileEntity) entries.getIfPresent(storedFileName);
+        if (cached != null) {
+            return cached;
+        }
+        if (misses.getIfPresent(storedFileName) != null) {
+            return null;
+        }
+
+        long loadGeneration = generation.get();
+        FileEntity fileEntity = loader.apply(storedFileName).orElse(null);
+        if (fileEntity != null) {
+            entries.put(storedFileName, fileEntity);
+            // Checked after the put: an eviction either sees the entry or bumped the generation before it
+            if (generation.get() != loadGeneration) {
+                entries.asMap().remove(storedFileName, fileEntity);
+            }
+        } else {
+            misses.put(storedFileName, Boolean.TRUE);
+        }
+        return fileEntity;
+    }
+
+    public void evict(String storedFileName) {
+        evictAll(List.of(storedFileName));
+    }
+
+    /**
+     * Evicts the names now and, when called inside a transaction, again after it commits, so a
+     * lookup that read the rows before the commit cannot leave a stale entry behind.
+     */
+    public void evictAll(Collection<String> storedFileNames) {
+        invalidate(storedFileNames);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate(storedFileNames);
+                }
+            });
+        }
+    }
+
+    private void invalidate(Collection<String> storedFileNames) {
+        generation.incrementAndGet();
+        entries.invalidateAll(storedFileNames);
+        misses.invalidateAll(storedFileNames);
+    }
+}
@@ -0,0 +1,118 @@
+package kh.edu.ppua.api.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import kh.edu.ppua.api.model.FileEntity;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Micrometer meters for file uploads, downloads, validation rejects and storage errors.
+ * <p>
+ * Uploads and downloads are tagged with the file's entity type and category; the number of
+ * distinct values is capped in {@code MetricsConfig}.
+ */
+@Component
+public class FileMetrics {
+
+    private final MeterRegistry registry;
+    private final AtomicInteger transfersInFlight = new AtomicInteger();
+    private final Counter transferTimeouts;
+
+    @Autowired
+    public FileMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        Gauge.builder("file.download.inflight", transfersInFlight, AtomicInteger::get)
+                .description("Downloads whose body is still being written asynchronously")
+                .register(registry);
+        this.transferTimeouts = Counter.builder("file.download.timeouts")
+                .description("Asynchronous downloads abandoned because the client stopped reading")
+                .register(registry);
+    }
+
+    public void recordUpload(String entityType, String category, long bytes, long durationNanos) {
+        Timer.builder("file.upload")
+                .description("Time to store an uploaded file and record it")
+                .tag("entity.type", tagValue(entityType))
+                .tag("category", tagValue(category))
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("file.upload.size")
+                .description("Size of uploaded files")
+                .baseUnit("bytes")
+                .tag("entity.type", tagValue(entityType))
+                .tag("category", tagValue(category))
+                .register(registry)
+                .record(bytes);
+    }
+
+    /**
+     * @param mode          download, view or variant (a resized image)
+     * @param bytes         body bytes of the response, 0 for HEAD and 304
+     * @param durationNanos time spent in the handler; with sendfile or async delivery the body is written afterwards
+     */
+    public void recordDownload(String mode, FileEntity fileEntity, long bytes, long durationNanos) {
+        Timer.builder("file.download")
+                .description("Time to serve a stored file")
+                .tag("mode", mode)
+                .tag("entity.type", tagValue(fileEntity.getEntityType()))
+                .tag("category", tagValue(fileEntity.getCategory()))
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("file.download.size")
+                .description("Body bytes sent for stored files")
+                .baseUnit("bytes")
+                .tag("mode", mode)
+                .tag("entity.type", tagValue(fileEntity.getEntityType()))
+                .tag("category", tagValue(fileEntity.getCategory()))
+                .register(registry)
+                .record(bytes);
+    }
+
+    public void transferStarted() {
+        transfersInFlight.incrementAndGet();
+    }
+
+    public void transferEnded() {
+        transfersInFlight.decrementAndGet();
+    }
+
+    public void transferTimedOut() {
+        transferTimeouts.increment();
+    }
+
+    /**
+     * @param reason empty, size, extension or name
+     */
+    public void validationRejected(String reason) {
+        Counter.builder("file.validation.rejects")
+                .description("Uploads rejected by validation")
+                .tag("reason", reason)
+                .register(registry)
+                .increment();
+    }
+
+    /**
+     * @param operation store or delete
+     */
+    public void storageError(String operation) {
+        Counter.builder("file.storage.errors")
+                .description("I/O failures while storing or deleting files")
+                .tag("operation", operation)
+                .register(registry)
+                .increment();
+    }
+
+    private static String tagValue(String value) {
+        return value != null && !value.isBlank() ? value.toLowerCase(Locale.ROOT) : "none";
+    }
+}
@@ -7,20 +7,49 @@ import org.springframework.core.io.UrlResource;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
 import java.net.MalformedURLException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
 
 @Service
 public class FileStorageService {
 
+    // Content-addressed blobs live under blobs/<2 hex>/<2 hex>/<sha-256>
+    private static final String BLOB_DIRECTORY = "blobs";
+    private static final String STAGING_DIRECTORY = ".staging";
+    // Released blobs wait here until the transaction that released them has ended
+    private static final String TRASH_DIRECTORY = ".trash";
+    // With the sharded layout files live under sharded/<subDirectory>/<2 hex>/<2 hex>/<stored name>,
+    // the hex digits taken from a hash of the stored name. The root keeps sub-directories, which come
+    // from client-supplied entity types, apart from blobs/ and packs/
+    private static final String SHARDED_DIRECTORY = "sharded";
+    private static final int SHARD_LEVELS = 2;
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
     private final Path fileStorageLocation;
+    private final FileMetrics fileMetrics;
+    private final boolean shardedLayout;
+    private final PackFileStore packFileStore;
 
-    public FileStorageService(@Value("${file.upload-dir}") String uploadDir) {
+    public FileStorageService(@Value("${file.upload-dir}") String uploadDir, FileMetrics fileMetrics,
+                              @Value("${file.layout.sharded:false}") boolean shardedLayout,
+                              PackFileStore packFileStore) {
         this.fileStorageLocation = Paths.get(uploadDir).toAbsolutePath().normalize();
+        this.fileMetrics = fileMetrics;
+        this.shardedLayout = shardedLayout;
+        this.packFileStore = packFileStore;
 
         try {
             Files.createDirectories(this.fileStorageLocation);
@@ -29,44 +58,219 @@ public class FileStorageService {
         }
     }
 
-    public String storeFile(MultipartFile file, String subDirectory) {
+    public StoredFile storeFile(MultipartFile file, String subDirectory) {
+        try (InputStream inputStream = file.getInputStream()) {
+            return storeFile(inputStream, file.getOriginalFilename(), subDirectory, Long.MAX_VALUE);
+        } catch (IOException ex) {
+            throw storageError("store", "Could not store file " + file.getOriginalFilename() + ". Please try again!", ex);
+        }
+    }
+
+    /**
+     * Writes the stream straight to its final location, hashing it and enforcing
+     * {@code maxFileSize} while the bytes flow. A partially written file is removed on failure.
+     * Files no larger than the pack store's threshold are appended to the pack store instead.
+     */
+    public StoredFile storeFile(InputStream inputStream, String originalFileName, String subDirectory, long maxFileSize) {
         // Normalize file name
-        String originalFileName = file.getOriginalFilename();
+        checkFileName(originalFileName);
 
-        if (originalFileName == null || originalFileName.contains("..")) {
-            throw new FileStorageException("Sorry! Filename contains invalid path sequence " + originalFileName);
+        try {
+            // Generate unique file name
+            String fileExtension = getFileExtension(originalFileName);
+            String storedFileName = generateUniqueFileName(originalFileName, fileExtension);
+
+            if (packFileStore.isEnabled()) {
+                // Read up to one byte past the pack threshold to find out which store the file belongs in
+                byte[] head = inputStream.readNBytes(packFileStore.getMaxFileSize() + 1);
+                if (packFileStore.accepts(head.length)) {
+                    return packFile(head, storedFileName, maxFileSize);
+                }
+                inputStream = new SequenceInputStream(new ByteArrayInputStream(head), inputStream);
+            }
+
+            // Create the target directory if it doesn't exist
+            String storagePath = shardedLayout ? getShardedPath(subDirectory, storedFileName) : null;
+            Path targetPath = storagePath != null
+                    ? resolveStoredPath(storagePath)
+                    : resolveFilePath(storedFileName, subDirectory);
+            Files.createDirectories(targetPath.getParent());
+
+            // Copy file to the target location, hashing the content on the way
+            StoredFile storedFile = writeContent(inputStream, targetPath, storedFileName, maxFileSize);
+            return new StoredFile(storedFileName, storedFile.contentHash(), storedFile.size(), storagePath);
+
+        } catch (IOException ex) {
+            throw storageError("store", "Could not store file " + originalFileName + ". Please try again!", ex);
+        }
+    }
+
+    private StoredFile packFile(byte[] content, String storedFileName, long maxFileSize) {
+        if (content.length > maxFileSize) {
+            throw rejected("size", "File size exceeds the maximum allowed size.");
+        }
+        if (content.length == 0) {
+            throw rejected("empty", "Failed to store empty file.");
+        }
+        String contentHash = HexFormat.of().formatHex(newContentDigest().digest(content));
+        try {
+            String storagePath = packFileStore.append(storedFileName, content);
+            return new StoredFile(storedFileName, contentHash, content.length, storagePath);
+        } catch (FileStorageException ex) {
+            fileMetrics.storageError("store");
+            throw ex;
+        }
+    }
+
+    /**
+     * Streams the upload into the staging area while hashing it. The returned {@link StoredFile}
+     * carries the blob path derived from the hash; call {@link #publishBlob(StoredFile)} once the
+     * blob reference has been recorded, or {@link #discardStagedBlob(StoredFile)} on failure.
+     */
+    public StoredFile stageBlob(InputStream inputStream, String originalFileName, long maxFileSize) {
+        checkFileName(originalFileName);
+
+        try {
+            Path stagingLocation = this.fileStorageLocation.resolve(STAGING_DIRECTORY);
+            Files.createDirectories(stagingLocation);
+
+            String storedFileName = generateUniqueFileName(originalFileName, getFileExtension(originalFileName));
+            StoredFile staged = writeContent(inputStream, stagingLocation.resolve(storedFileName), storedFileName, maxFileSize);
+
+            return new StoredFile(storedFileName, staged.contentHash(), staged.size(), getBlobPath(staged.contentHash()));
+
+        } catch (IOException ex) {
+            throw storageError("store", "Could not store file " + originalFileName + ". Please try again!", ex);
+        }
+    }
+
+    /**
+     * Puts an already assembled file (for example a finished chunked upload) into storage. The
+     * source is linked or copied, not moved, so it is still there if recording the upload fails.
+     */
+    public StoredFile storeFile(Path source, String originalFileName, String subDirectory) {
+        checkFileName(originalFileName);
+
+        try {
+            String storedFileName = generateUniqueFileName(originalFileName, getFileExtension(originalFileName));
+            String storagePath = shardedLayout ? getShardedPath(subDirectory, storedFileName) : null;
+            Path targetPath = storagePath != null
+                    ? resolveStoredPath(storagePath)
+                    : resolveFilePath(storedFileName, subDirectory);
+            Files.createDirectories(targetPath.getParent());
+
+            String contentHash = hashFile(source);
+            long size = Files.size(source);
+            linkOrCopy(source, targetPath);
+
+            return new StoredFile(storedFileName, contentHash, size, storagePath);
+
+        } catch (IOException ex) {
+            throw storageError("store", "Could not store file " + originalFileName + ". Please try again!", ex);
+        }
+    }
+
+    /**
+     * Links or copies an already assembled file into the staging area, see
+     * {@link #stageBlob(InputStream, String, long)}. The source is left in place.
+     */
+    public StoredFile stageBlob(Path source, String originalFileName) {
+        checkFileName(originalFileName);
+
+        try {
+            Path stagingLocation = this.fileStorageLocation.resolve(STAGING_DIRECTORY);
+            Files.createDirectories(stagingLocation);
+
+            String storedFileName = generateUniqueFileName(originalFileName, getFileExtension(originalFileName));
+            String contentHash = hashFile(source);
+            long size = Files.size(source);
+            linkOrCopy(source, stagingLocation.resolve(storedFileName));
+
+            return new StoredFile(storedFileName, contentHash, size, getBlobPath(contentHash));
+
+        } catch (IOException ex) {
+            throw storageError("store", "Could not store file " + originalFileName + ". Please try again!", ex);
         }
+    }
+
+    /**
+     * Moves a staged upload to its blob location, or drops it if an identical blob is already stored.
+     *
+     * @return whether the staged upload became the blob
+     */
+    public boolean publishBlob(StoredFile storedFile) {
+        Path stagedPath = this.fileStorageLocation.resolve(STAGING_DIRECTORY).resolve(storedFile.storedFileName());
+        Path blobPath = this.fileStorageLocation.resolve(storedFile.storagePath());
 
         try {
-            // Create subdirectory if it doesn't exist
-            Path targetLocation = this.fileStorageLocation;
-            if (subDirectory != null && !subDirectory.trim().isEmpty()) {
-                targetLocation = targetLocation.resolve(subDirectory);
-                Files.createDirectories(targetLocation);
+            if (Files.exists(blobPath)) {
+                Files.delete(stagedPath);
+                return false;
             }
+            Files.createDirectories(blobPath.getParent());
+            Files.move(stagedPath, blobPath, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (IOException ex) {
+            throw storageError("store", "Could not store blob " + storedFile.contentHash(), ex);
+        }
+    }
 
-            // Generate unique file name
-            String fileExtension = getFileExtension(originalFileName);
-            String storedFileName = generateUniqueFileName(originalFileName, fileExtension);
+    public void discardStagedBlob(StoredFile storedFile) {
+        try {
+            Files.deleteIfExists(this.fileStorageLocation.resolve(STAGING_DIRECTORY).resolve(storedFile.storedFileName()));
+        } catch (IOException ex) {
+            throw storageError("delete", "Could not delete staged file " + storedFile.storedFileName(), ex);
+        }
+    }
 
-            // Copy file to the target location
-            Path targetPath = targetLocation.resolve(storedFileName);
-            Files.copy(file.getInputStream(), targetPath, StandardCopyOption.REPLACE_EXISTING);
+    /**
+     * Moves a blob out of blobs/, so it is gone for new uploads but can still be put back with
+     * {@link #restoreBlob(Path, String)}. Returns where it went, or {@code null} if it did not exist.
+     */
+    public Path trashBlob(String storagePath) {
+        Path blobPath = resolveStoredPath(storagePath);
+        Path trashedPath = this.fileStorageLocation.resolve(TRASH_DIRECTORY)
+                .resolve(blobPath.getFileName() + "-" + java.util.UUID.randomUUID());
+        try {
+            Files.createDirectories(trashedPath.getParent());
+            Files.move(blobPath, trashedPath, StandardCopyOption.ATOMIC_MOVE);
+            return trashedPath;
+        } catch (NoSuchFileException ex) {
+            return null;
+        } catch (IOException ex) {
+            throw storageError("delete", "Could not delete blob " + storagePath, ex);
+        }
+    }
 
-            return storedFileName;
+    /**
+     * Moves a trashed blob back. If the same content was published again in the meantime,
+     * the identical copy simply replaces it.
+     */
+    public void restoreBlob(Path trashedPath, String storagePath) {
+        Path blobPath = resolveStoredPath(storagePath);
+        try {
+            Files.createDirectories(blobPath.getParent());
+            Files.move(trashedPath, blobPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            throw storageError("store", "Could not restore blob " + storagePath, ex);
+        }
+    }
 
+    public void deleteTrashedBlob(Path trashedPath) {
+        try {
+            Files.deleteIfExists(trashedPath);
         } catch (IOException ex) {
-            throw new FileStorageException("Could not store file " + originalFileName + ". Please try again!", ex);
+            throw storageError("delete", "Could not delete file " + trashedPath.getFileName(), ex);
         }
     }
 
+    public boolean isBlobPath(String storagePath) {
+        return storagePath != null && storagePath.startsWith(BLOB_DIRECTORY + "/");
+    }
+
     public Resource loadFileAsResource(String fileName, String subDirectory) {
         try {
-            Path filePath = this.fileStorageLocation;
-            if (subDirectory != null && !subDirectory.trim().isEmpty()) {
-                filePath = filePath.resolve(subDirectory);
-            }
-            filePath = filePath.resolve(fileName).normalize();
+            Path filePath = resolveFilePath(fileName, subDirectory);
 
             Resource resource = new UrlResource(filePath.toUri());
 
@@ -80,17 +284,132 @@ public class FileStorageService {
         }
     }
 
-    public void deleteFile(String fileName, String subDirectory) {
+    public Path loadFilePath(String fileName, String subDirectory) {
+        Path filePath = resolveFilePath(fileName, subDirectory);
+
+        if (!Files.isRegularFile(filePath)) {
+            throw new FileStorageException("File not found " + fileName);
+        }
+        return filePath;
+    }
+
+    /**
+     * Locates a file recorded with a storage path: a pack store entry, a blob or a sharded file.
+     */
+    public StoredContent loadStoredContent(String storagePath) {
+        if (packFileStore.isPackPath(storagePath)) {
+            return packFileStore.locate(storagePath);
+        }
+        Path filePath = loadStoredPath(storagePath);
+        try {
+            return StoredContent.of(filePath);
+        } catch (IOException ex) {
+            throw new FileStorageException("File not found " + storagePath, ex);
+        }
+    }
+
+    public StoredContent loadFileContent(String fileName, String subDirectory) {
+        Path filePath = loadFilePath(fileName, subDirectory);
         try {
-            Path filePath = this.fileStorageLocation;
-            if (subDirectory != null && !subDirectory.trim().isEmpty()) {
-                filePath = filePath.resolve(subDirectory);
+            return StoredContent.of(filePath);
+        } catch (IOException ex) {
+            throw new FileStorageException("File not found " + fileName, ex);
+        }
+    }
+
+    /**
+     * Opens the content for reading; packed files are read from the memory-mapped segment.
+     */
+    public InputStream openStream(StoredContent content) throws IOException {
+        if (content.isPacked()) {
+            return packFileStore.openStream(content.packedName());
+        }
+        return Files.newInputStream(content.path());
+    }
+
+    public Path loadStoredPath(String storagePath) {
+        Path filePath = resolveStoredPath(storagePath);
+
+        if (!Files.isRegularFile(filePath)) {
+            throw new FileStorageException("File not found " + storagePath);
+        }
+        return filePath;
+    }
+
+    public void deleteStoredPath(String storagePath) {
+        if (packFileStore.isPackPath(storagePath)) {
+            try {
+                packFileStore.delete(storagePath);
+            } catch (FileStorageException ex) {
+                fileMetrics.storageError("delete");
+                throw ex;
             }
-            filePath = filePath.resolve(fileName).normalize();
+            return;
+        }
+        try {
+            Files.deleteIfExists(resolveStoredPath(storagePath));
+        } catch (IOException ex) {
+            throw storageError("delete", "Could not delete file " + storagePath, ex);
+        }
+    }
+
+    public void deleteFile(String fileName, String subDirectory) {
+        try {
+            Files.deleteIfExists(resolveFilePath(fileName, subDirectory));
+        } catch (IOException ex) {
+            throw storageError("delete", "Could not delete file " + fileName, ex);
+        }
+    }
 
-            Files.deleteIfExists(filePath);
+    /**
+     * Returns the sharded location of a file relative to the upload root,
+     * e.g. {@code sharded/newss/gallery/3f/a2/<stored name>}.
+     */
+    public String getShardedPath(String subDirectory, String storedFileName) {
+        byte[] hash = newContentDigest().digest(storedFileName.getBytes(StandardCharsets.UTF_8));
+        StringBuilder path = new StringBuilder(SHARDED_DIRECTORY).append('/');
+        if (subDirectory != null && !subDirectory.trim().isEmpty()) {
+            path.append(subDirectory).append('/');
+        }
+        for (int level = 0; level < SHARD_LEVELS; level++) {
+            path.append(HexFormat.of().toHexDigits(hash[level])).append('/');
+        }
+        return path.append(storedFileName).toString();
+    }
+
+    /**
+     * Makes a flat-layout file also reachable at {@code storagePath}, without removing the original,
+     * so readers holding the old location keep working until it is deleted. Uses a hard link where
+     * the file system supports it and a copy otherwise.
+     *
+     * @return {@code false} if the original file does not exist
+     */
+    public boolean linkToStoredPath(String fileName, String subDirectory, String storagePath) {
+        Path source = resolveFilePath(fileName, subDirectory);
+        Path target = resolveStoredPath(storagePath);
+        if (!Files.isRegularFile(source)) {
+            return false;
+        }
+
+        try {
+            Files.createDirectories(target.getParent());
+            if (Files.exists(target)) {
+                // Left behind by an interrupted run
+                Files.delete(target);
+            }
+            linkOrCopy(source, target);
+            return true;
         } catch (IOException ex) {
-            throw new FileStorageException("Could not delete file " + fileName, ex);
+            throw storageError("store", "Could not move file " + fileName + " to " + storagePath, ex);
+        }
+    }
+
+    // A hard link shares the content without copying it; a copy where the file system has no links
+    private void linkOrCopy(Path source, Path target) throws IOException {
+        try {
+            Files.createLink(target, source);
+        } catch (UnsupportedOperationException | IOException ex) {
+            Files.copy(source, target, StandardCopyOption.COPY_ATTRIBUTES);
         }
     }
 
@@ -102,7 +421,91 @@ public class FileStorageService {
         return path.toString();
     }
 
-    private String generateUniqueFileName(String originalFileName, String fileExtension) {
+    private Path resolveFilePath(String fileName, String subDirectory) {
+        Path filePath = this.fileStorageLocation;
+        if (subDirectory != null && !subDirectory.trim().isEmpty()) {
+            filePath = filePath.resolve(subDirectory);
+        }
+        return filePath.resolve(fileName).normalize();
+    }
+
+    private void checkFileName(String originalFileName) {
+        if (originalFileName == null || originalFileName.contains("..")) {
+            throw rejected("name", "Sorry! Filename contains invalid path sequence " + originalFileName);
+        }
+    }
+
+    private FileStorageException rejected(String reason, String message) {
+        fileMetrics.validationRejected(reason);
+        return new FileStorageException(message);
+    }
+
+    private FileStorageException storageError(String operation, String message, Exception ex) {
+        fileMetrics.storageError(operation);
+        return new FileStorageException(message, ex);
+    }
+
+    private StoredFile writeContent(InputStream inputStream, Path targetPath, String storedFileName, long maxFileSize)
+            throws IOException {
+        MessageDigest digest = newContentDigest();
+        byte[] buffer = new byte[COPY_BUFFER_SIZE];
+        long size = 0;
+
+        try (OutputStream outputStream = Files.newOutputStream(targetPath)) {
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                size += read;
+                if (size > maxFileSize) {
+                    throw rejected("size", "File size exceeds the maximum allowed size.");
+                }
+                digest.update(buffer, 0, read);
+                outputStream.write(buffer, 0, read);
+            }
+        } catch (IOException | RuntimeException ex) {
+            Files.deleteIfExists(targetPath);
+            throw ex;
+        }
+
+        if (size == 0) {
+            Files.deleteIfExists(targetPath);
+            throw rejected("empty", "Failed to store empty file.");
+        }
+        return new StoredFile(storedFileName, HexFormat.of().formatHex(digest.digest()), size, null);
+    }
+
+    private String hashFile(Path file) throws IOException {
+        MessageDigest digest = newContentDigest();
+        byte[] buffer = new byte[COPY_BUFFER_SIZE];
+        try (InputStream inputStream = Files.newInputStream(file)) {
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private Path resolveStoredPath(String storagePath) {
+        Path filePath = this.fileStorageLocation.resolve(storagePath).normalize();
+        if (!filePath.startsWith(this.fileStorageLocation)) {
+            throw new FileStorageException("Invalid storage path " + storagePath);
+        }
+        return filePath;
+    }
+
+    private String getBlobPath(String contentHash) {
+        return BLOB_DIRECTORY + "/" + contentHash.substring(0, 2) + "/" + contentHash.substring(2, 4) + "/" + contentHash;
+    }
+
+    private MessageDigest newContentDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+    }
+
+    String generateUniqueFileName(String originalFileName, String fileExtension) {
         String baseName = originalFileName.substring(0, originalFileName.lastIndexOf('.'));
         String uuid = java.util.UUID.randomUUID().toString();
         return uuid + "-" + baseName.replaceAll("[^a-zA-Z0-9]", "-") + fileExtension;
@@ -123,15 +526,18 @@ public class FileStorageService {
 
     public void validateFile(MultipartFile file, long maxFileSize, String[] allowedExtensions) {
         if (file.isEmpty()) {
-            throw new FileStorageException("Failed to store empty file.");
+            throw rejected("empty", "Failed to store empty file.");
         }
 
         if (file.getSize() > maxFileSize) {
-            throw new FileStorageException("File size exceeds the maximum allowed size.");
+            throw rejected("size", "File size exceeds the maximum allowed size.");
         }
 
+        validateFileName(file.getOriginalFilename(), allowedExtensions);
+    }
+
+    public void validateFileName(String originalFileName, String[] allowedExtensions) {
         if (allowedExtensions != null && allowedExtensions.length > 0) {
-            String originalFileName = file.getOriginalFilename();
             if (originalFileName != null) {
                 String fileExtension = getFileExtension(originalFileName).toLowerCase();
                 boolean isValidExtension = false;
@@ -142,7 +548,7 @@ public class FileStorageService {
                     }
                 }
                 if (!isValidExtension) {
-                    throw new FileStorageException("File type not allowed. Allowed types: " +
+                    throw rejected("extension", "File type not allowed. Allowed types: " +
                             String.join(", ", allowedExtensions));
                 }
             }
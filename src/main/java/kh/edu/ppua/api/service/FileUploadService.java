@@ -1,16 +1,47 @@
 package kh.edu.ppua.api.service;
 
+import kh.edu.ppua.api.config.PaginationConfig;
+import kh.edu.ppua.api.dto.CursorPageRes;
+import kh.edu.ppua.api.dto.FileBulkDeleteRes;
 import kh.edu.ppua.api.dto.FileUploadReq;
+import kh.edu.ppua.api.dto.FileUploadRes;
+import kh.edu.ppua.api.dto.FileUploadResult;
+import kh.edu.ppua.api.exception.FileStorageException;
 import kh.edu.ppua.api.exception.ResourceNotFoundException;
 import kh.edu.ppua.api.model.FileEntity;
+import kh.edu.ppua.api.repository.FileBlobRepository;
 import kh.edu.ppua.api.repository.FileRepository;
+import kh.edu.ppua.api.repository.FileRepository.StoredFileRow;
+import kh.edu.ppua.api.util.PageCursor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 @Service
 @Transactional
@@ -25,13 +56,38 @@ public class FileUploadService {
     @Value("${file.allowed-extensions:jpg,jpeg,png,gif,pdf,doc,docx}")
     private String[] allowedExtensions;
 
+    @Value("${file.content-addressed:false}")
+    private boolean contentAddressed;
+
     private final FileRepository fileRepository;
+    private final FileBlobRepository fileBlobRepository;
     private final FileStorageService fileStorageService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Executor fileTaskExecutor;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate cleanupTemplate;
+    private final PaginationConfig paginationConfig;
+    private final FileMetadataCache metadataCache;
+    private final FileMetrics fileMetrics;
 
     @Autowired
-    public FileUploadService(FileRepository fileRepository, FileStorageService fileStorageService) {
+    public FileUploadService(FileRepository fileRepository, FileBlobRepository fileBlobRepository,
+                             FileStorageService fileStorageService, ApplicationEventPublisher eventPublisher,
+                             @Qualifier("fileTaskExecutor") Executor fileTaskExecutor,
+                             PlatformTransactionManager transactionManager, PaginationConfig paginationConfig,
+                             FileMetadataCache metadataCache, FileMetrics fileMetrics) {
         this.fileRepository = fileRepository;
+        this.fileBlobRepository = fileBlobRepository;
         this.fileStorageService = fileStorageService;
+        this.eventPublisher = eventPublisher;
+        this.fileTaskExecutor = fileTaskExecutor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // Rollback hooks still see the finished transaction, so their cleanup needs a new one
+        this.cleanupTemplate = new TransactionTemplate(transactionManager);
+        this.cleanupTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.paginationConfig = paginationConfig;
+        this.metadataCache = metadataCache;
+        this.fileMetrics = fileMetrics;
     }
 
     public FileEntity uploadFile(FileUploadReq uploadRequest) {
@@ -40,26 +96,204 @@ public class FileUploadService {
         // Validate file
         fileStorageService.validateFile(file, maxFileSize, allowedExtensions);
 
+        try (InputStream inputStream = file.getInputStream()) {
+            return uploadFile(inputStream, file.getOriginalFilename(), file.getContentType(), uploadRequest);
+        } catch (IOException ex) {
+            throw new FileStorageException("Could not store file " + file.getOriginalFilename() + ". Please try again!", ex);
+        }
+    }
+
+    /**
+     * Stores an upload that is read directly from the request body. The size limit is
+     * enforced while the content is written; {@code uploadRequest} only supplies the metadata.
+     */
+    public FileEntity uploadFile(InputStream inputStream, String originalFileName, String contentType,
+                                 FileUploadReq uploadRequest) {
+        long start = System.nanoTime();
+
+        // Validate file name before any bytes are written
+        fileStorageService.validateFileName(originalFileName, allowedExtensions);
+
         // Determine subdirectory based on entity type and category
         String subDirectory = getSubDirectory(uploadRequest.getEntityType(), uploadRequest.getCategory());
 
         // Store file on disk
-        String storedFileName = fileStorageService.storeFile(file, subDirectory);
+        StoredFile storedFile = contentAddressed
+                ? publishBlob(fileStorageService.stageBlob(inputStream, originalFileName, maxFileSize))
+                : fileStorageService.storeFile(inputStream, originalFileName, subDirectory, maxFileSize);
+
+        FileEntity savedFile = saveFileEntity(storedFile, originalFileName, contentType, subDirectory, uploadRequest);
+        recordUpload(uploadRequest, storedFile, start);
+        return savedFile;
+    }
+
+    /**
+     * Stores an already assembled file and records it, e.g. a completed chunked upload. The assembled
+     * file is left in place, and the stored copy is removed again if the record is not committed, so
+     * the caller can retry.
+     */
+    public FileEntity uploadFile(Path assembledFile, String originalFileName, String contentType,
+                                 FileUploadReq uploadRequest) {
+        long start = System.nanoTime();
+        fileStorageService.validateFileName(originalFileName, allowedExtensions);
+
+        String subDirectory = getSubDirectory(uploadRequest.getEntityType(), uploadRequest.getCategory());
+
+        StoredFile storedFile = contentAddressed
+                ? publishBlob(fileStorageService.stageBlob(assembledFile, originalFileName))
+                : fileStorageService.storeFile(assembledFile, originalFileName, subDirectory);
+        discardOnRollback(storedFile, subDirectory);
+
+        FileEntity savedFile = saveFileEntity(storedFile, originalFileName, contentType, subDirectory, uploadRequest);
+        recordUpload(uploadRequest, storedFile, start);
+        return savedFile;
+    }
+
+    /**
+     * Uploads a batch of files. Every part is validated first, the valid ones are written to disk
+     * in parallel on the file task executor, and their metadata is inserted in one statement.
+     * Each file gets its own result; a rejected file does not fail the others.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<FileUploadResult> uploadFiles(List<MultipartFile> files, FileUploadReq uploadRequest) {
+        long start = System.nanoTime();
+        String subDirectory = getSubDirectory(uploadRequest.getEntityType(), uploadRequest.getCategory());
+        FileUploadResult[] results = new FileUploadResult[files.size()];
+
+        // Validate every part before anything is written
+        for (int i = 0; i < files.size(); i++) {
+            MultipartFile file = files.get(i);
+            try {
+                fileStorageService.validateFile(file, maxFileSize, allowedExtensions);
+            } catch (RuntimeException ex) {
+                results[i] = FileUploadResult.failure(file.getOriginalFilename(), ex.getMessage());
+            }
+        }
+
+        // Write the valid files in parallel
+        List<CompletableFuture<StoredFile>> writes = new ArrayList<>(files.size());
+        for (int i = 0; i < files.size(); i++) {
+            MultipartFile file = files.get(i);
+            writes.add(results[i] != null
+                    ? null
+                    : CompletableFuture.supplyAsync(() -> writeFile(file, subDirectory), fileTaskExecutor));
+        }
+
+        List<Integer> storedIndexes = new ArrayList<>();
+        List<StoredFile> storedFiles = new ArrayList<>();
+        for (int i = 0; i < files.size(); i++) {
+            if (writes.get(i) == null) {
+                continue;
+            }
+            try {
+                storedFiles.add(writes.get(i).join());
+                storedIndexes.add(i);
+            } catch (CompletionException ex) {
+                Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                results[i] = FileUploadResult.failure(files.get(i).getOriginalFilename(), cause.getMessage());
+            }
+        }
+
+        if (!storedFiles.isEmpty()) {
+            try {
+                List<FileEntity> savedFiles = transactionTemplate.execute(status -> {
+                    List<FileEntity> fileEntities = new ArrayList<>(storedFiles.size());
+                    for (int k = 0; k < storedFiles.size(); k++) {
+                        MultipartFile file = files.get(storedIndexes.get(k));
+                        StoredFile storedFile = contentAddressed ? publishBlob(storedFiles.get(k)) : storedFiles.get(k);
+                        fileEntities.add(buildFileEntity(storedFile, file.getOriginalFilename(), file.getContentType(),
+                                subDirectory, uploadRequest));
+                    }
+
+                    List<FileEntity> inserted = fileRepository.insertAll(fileEntities);
+                    inserted.forEach(fileEntity -> eventPublisher.publishEvent(new FileUploadedEvent(fileEntity)));
+                    return inserted;
+                });
+
+                for (int k = 0; k < savedFiles.size(); k++) {
+                    results[storedIndexes.get(k)] = FileUploadResult.success(new FileUploadRes(savedFiles.get(k)));
+                    // Files of a batch are written concurrently and committed together, so each records the batch time
+                    recordUpload(uploadRequest, storedFiles.get(k), start);
+                }
+            } catch (RuntimeException ex) {
+                // The metadata insert is all or nothing; remove what was written for this batch
+                for (int k = 0; k < storedFiles.size(); k++) {
+                    discardStoredFile(storedFiles.get(k), subDirectory);
+                    results[storedIndexes.get(k)] = FileUploadResult.failure(
+                            files.get(storedIndexes.get(k)).getOriginalFilename(), ex.getMessage());
+                }
+            }
+        }
+
+        return Arrays.asList(results);
+    }
+
+    private StoredFile writeFile(MultipartFile file, String subDirectory) {
+        if (!contentAddressed) {
+            return fileStorageService.storeFile(file, subDirectory);
+        }
+        try (InputStream inputStream = file.getInputStream()) {
+            return fileStorageService.stageBlob(inputStream, file.getOriginalFilename(), maxFileSize);
+        } catch (IOException ex) {
+            throw new FileStorageException("Could not store file " + file.getOriginalFilename() + ". Please try again!", ex);
+        }
+    }
+
+    private void recordUpload(FileUploadReq uploadRequest, StoredFile storedFile, long start) {
+        fileMetrics.recordUpload(uploadRequest.getEntityType(), uploadRequest.getCategory(),
+                storedFile.size(), System.nanoTime() - start);
+    }
+
+    private void discardOnRollback(StoredFile storedFile, String subDirectory) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        discardStoredFile(storedFile, subDirectory);
+                    }
+                }
+            });
+        }
+    }
+
+    private void discardStoredFile(StoredFile storedFile, String subDirectory) {
+        if (fileStorageService.isBlobPath(storedFile.storagePath())) {
+            // A blob that was already published may be shared, so only the staged copy is removed
+            fileStorageService.discardStagedBlob(storedFile);
+        } else if (storedFile.storagePath() != null) {
+            fileStorageService.deleteStoredPath(storedFile.storagePath());
+        } else {
+            fileStorageService.deleteFile(storedFile.storedFileName(), subDirectory);
+        }
+    }
+
+    private FileEntity saveFileEntity(StoredFile storedFile, String originalFileName, String contentType,
+                                      String subDirectory, FileUploadReq uploadRequest) {
+        FileEntity savedFile = fileRepository.save(
+                buildFileEntity(storedFile, originalFileName, contentType, subDirectory, uploadRequest));
+        eventPublisher.publishEvent(new FileUploadedEvent(savedFile));
+        return savedFile;
+    }
+
+    private FileEntity buildFileEntity(StoredFile storedFile, String originalFileName, String contentType,
+                                       String subDirectory, FileUploadReq uploadRequest) {
+        String storedFileName = storedFile.storedFileName();
 
         // Create file entity
-        FileEntity fileEntity = FileEntity.builder()
-                .originalFileName(file.getOriginalFilename())
+        return FileEntity.builder()
+                .originalFileName(originalFileName)
                 .storedFileName(storedFileName)
-                .fileType(file.getContentType())
-                .fileSize(file.getSize())
+                .fileType(contentType != null ? contentType : "application/octet-stream")
+                .fileSize(storedFile.size())
+                .contentHash(storedFile.contentHash())
+                .storagePath(storedFile.storagePath())
                 .filePath(uploadDir + "/" + (subDirectory != null ? subDirectory + "/" : "") + storedFileName)
                 .description(uploadRequest.getDescription())
                 .category(uploadRequest.getCategory())
                 .entityId(uploadRequest.getEntityId())
                 .entityType(uploadRequest.getEntityType())
                 .build();
-
-        return fileRepository.save(fileEntity);
     }
 
     public FileEntity getFile(Long id) {
@@ -67,9 +301,14 @@ public class FileUploadService {
                 .orElseThrow(() -> new ResourceNotFoundException("File", "id", id));
     }
 
+    // Served from the metadata cache, so a hot download needs neither a transaction nor a connection
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public FileEntity getFileByStoredName(String storedFileName) {
-        return fileRepository.findByStoredFileName(storedFileName)
-                .orElseThrow(() -> new ResourceNotFoundException("File", "storedFileName", storedFileName));
+        FileEntity fileEntity = metadataCache.get(storedFileName, fileRepository::findByStoredFileName);
+        if (fileEntity == null) {
+            throw new ResourceNotFoundException("File", "storedFileName", storedFileName);
+        }
+        return fileEntity;
     }
 
     public List<FileEntity> getFilesByEntity(Long entityId, String entityType) {
@@ -84,15 +323,48 @@ public class FileUploadService {
         return fileRepository.findByEntityAndCategory(entityType, entityId, category);
     }
 
+    /**
+     * Returns one page of an entity's files, newest first, optionally limited to one category.
+     */
+    public CursorPageRes<FileEntity> getFilePageByEntity(Long entityId, String entityType, String category,
+                                                         String cursor, Integer size) {
+        int pageSize = paginationConfig.resolvePageSize(size);
+        PageCursor after = PageCursor.decode(cursor, PageCursor.LATEST);
+        Limit limit = Limit.of(pageSize + 1);
+
+        List<FileEntity> rows = category != null
+                ? fileRepository.findPageByEntityAndCategory(entityType, entityId, category,
+                        after.timestamp(), after.id(), limit)
+                : fileRepository.findPageByEntity(entityType, entityId, after.timestamp(), after.id(), limit);
+        return CursorPageRes.of(rows, pageSize, FileUploadService::pageCursor);
+    }
+
+    public CursorPageRes<FileEntity> getFilePageByCategory(String category, String cursor, Integer size) {
+        int pageSize = paginationConfig.resolvePageSize(size);
+        PageCursor after = PageCursor.decode(cursor, PageCursor.LATEST);
+
+        List<FileEntity> rows = fileRepository.findPageByCategory(category, after.timestamp(), after.id(),
+                Limit.of(pageSize + 1));
+        return CursorPageRes.of(rows, pageSize, FileUploadService::pageCursor);
+    }
+
+    private static PageCursor pageCursor(FileEntity fileEntity) {
+        return new PageCursor(fileEntity.getUploadedAt(), fileEntity.getId());
+    }
+
     public void deleteFile(Long id) {
         FileEntity fileEntity = getFile(id);
 
         // Delete file from storage
-        String subDirectory = getSubDirectory(fileEntity.getEntityType(), fileEntity.getCategory());
-        fileStorageService.deleteFile(fileEntity.getStoredFileName(), subDirectory);
+        if (fileStorageService.isBlobPath(fileEntity.getStoragePath())) {
+            releaseBlob(fileEntity);
+        } else {
+            deleteStoredFile(fileEntity);
+        }
 
         // Delete from database
         fileRepository.delete(fileEntity);
+        metadataCache.evict(fileEntity.getStoredFileName());
     }
 
     public void deleteFileByStoredName(String storedFileName) {
@@ -100,9 +372,165 @@ public class FileUploadService {
         deleteFile(fileEntity.getId());
     }
 
-    public void deleteFilesByEntity(Long entityId, String entityType) {
-        List<FileEntity> files = getFilesByEntity(entityId, entityType);
-        files.forEach(file -> deleteFile(file.getId()));
+    public FileBulkDeleteRes deleteFilesByEntity(Long entityId, String entityType) {
+        return deleteFilesByEntity(entityId, entityType, false);
+    }
+
+    /**
+     * Deletes every file of an entity with one select and one bulk delete. The stored files are
+     * removed from disk in parallel once the transaction has committed; shared blobs that lose
+     * their last reference are moved aside while their row is still locked, see {@link #deleteBlob}.
+     *
+     * @param dryRun only count the matching files without deleting anything
+     */
+    public FileBulkDeleteRes deleteFilesByEntity(Long entityId, String entityType, boolean dryRun) {
+        List<StoredFileRow> files = fileRepository.findStoredFilesByEntity(entityId, entityType);
+
+        FileBulkDeleteRes result = FileBulkDeleteRes.builder()
+                .entityType(entityType)
+                .entityId(entityId)
+                .dryRun(dryRun)
+                .matchedFiles(files.size())
+                .totalSize(files.stream().mapToLong(file -> file.getFileSize() != null ? file.getFileSize() : 0).sum())
+                .build();
+        if (dryRun || files.isEmpty()) {
+            return result;
+        }
+
+        List<Long> ids = new ArrayList<>(files.size());
+        Map<String, Long> blobReferences = new HashMap<>();
+        Map<String, String> blobPaths = new HashMap<>();
+        for (StoredFileRow file : files) {
+            ids.add(file.getId());
+            if (fileStorageService.isBlobPath(file.getStoragePath())) {
+                blobReferences.merge(file.getContentHash(), 1L, Long::sum);
+                blobPaths.put(file.getContentHash(), file.getStoragePath());
+            }
+        }
+
+        result.setDeletedFiles(fileRepository.deleteByIdIn(ids));
+        metadataCache.evictAll(files.stream().map(StoredFileRow::getStoredFileName).toList());
+
+        // One release per distinct blob, however many of the files shared it
+        blobReferences.forEach((contentHash, count) -> {
+            fileBlobRepository.releaseReferences(contentHash, count);
+            if (fileBlobRepository.deleteIfUnreferenced(contentHash) > 0) {
+                deleteBlob(blobPaths.get(contentHash));
+            }
+        });
+
+        eventPublisher.publishEvent(new FilesDeletedEvent(files));
+        return result;
+    }
+
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void removeDeletedFiles(FilesDeletedEvent event) {
+        List<Runnable> deletions = new ArrayList<>();
+        for (StoredFileRow file : event.files()) {
+            if (!fileStorageService.isBlobPath(file.getStoragePath())) {
+                deletions.add(() -> deleteStoredFile(file.getStoragePath(), file.getStoredFileName(),
+                        file.getEntityType(), file.getCategory()));
+            }
+        }
+
+        // The records are already gone, so a file that cannot be removed is only an orphan on disk
+        deletions.forEach(deletion -> CompletableFuture.runAsync(deletion, fileTaskExecutor));
+    }
+
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public StoredContent loadFileContent(FileEntity fileEntity) {
+        if (fileEntity.getStoragePath() != null) {
+            return fileStorageService.loadStoredContent(fileEntity.getStoragePath());
+        }
+        String subDirectory = getSubDirectory(fileEntity.getEntityType(), fileEntity.getCategory());
+        return fileStorageService.loadFileContent(fileEntity.getStoredFileName(), subDirectory);
+    }
+
+    private StoredFile publishBlob(StoredFile storedFile) {
+        try {
+            // Locks the blob row, so a concurrent release cannot remove the blob we are about to reuse
+            fileBlobRepository.acquireReference(storedFile.contentHash(), storedFile.storagePath(), storedFile.size());
+            if (fileStorageService.publishBlob(storedFile)) {
+                removeBlobOnRollback(storedFile);
+            }
+            return storedFile;
+        } catch (RuntimeException ex) {
+            fileStorageService.discardStagedBlob(storedFile);
+            throw ex;
+        }
+    }
+
+    /**
+     * A blob published by a transaction that rolls back has lost the reference that transaction
+     * recorded. Once the rollback has released the row, it is locked again and the blob removed
+     * unless another upload of the same content has referenced it since.
+     */
+    private void removeBlobOnRollback(StoredFile storedFile) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_ROLLED_BACK) {
+                    return;
+                }
+                cleanupTemplate.executeWithoutResult(cleanup -> {
+                    fileBlobRepository.lockReference(storedFile.contentHash(), storedFile.storagePath(), storedFile.size());
+                    if (fileBlobRepository.deleteIfUnreferenced(storedFile.contentHash()) > 0) {
+                        deleteBlob(storedFile.storagePath());
+                    }
+                });
+            }
+        });
+    }
+
+    private void deleteStoredFile(FileEntity fileEntity) {
+        deleteStoredFile(fileEntity.getStoragePath(), fileEntity.getStoredFileName(),
+                fileEntity.getEntityType(), fileEntity.getCategory());
+    }
+
+    private void deleteStoredFile(String storagePath, String storedFileName, String entityType, String category) {
+        if (storagePath != null) {
+            fileStorageService.deleteStoredPath(storagePath);
+        } else {
+            fileStorageService.deleteFile(storedFileName, getSubDirectory(entityType, category));
+        }
+    }
+
+    private void releaseBlob(FileEntity fileEntity) {
+        fileBlobRepository.releaseReference(fileEntity.getContentHash());
+        if (fileBlobRepository.deleteIfUnreferenced(fileEntity.getContentHash()) > 0) {
+            deleteBlob(fileEntity.getStoragePath());
+        }
+    }
+
+    /**
+     * Removes a blob whose row was just deleted. It is moved aside while the row is still locked,
+     * because after commit a concurrent upload of the same content may already have re-created the
+     * row and kept the existing blob instead of its own copy. It is only deleted once the transaction
+     * commits, and put back if it rolls back.
+     */
+    private void deleteBlob(String storagePath) {
+        Path trashedPath = fileStorageService.trashBlob(storagePath);
+        if (trashedPath == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            fileStorageService.deleteTrashedBlob(trashedPath);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    fileStorageService.deleteTrashedBlob(trashedPath);
+                } else {
+                    fileStorageService.restoreBlob(trashedPath, storagePath);
+                }
+            }
+        });
     }
 
     public String getSubDirectory(String entityType, String category) {
@@ -116,6 +544,12 @@ public class FileUploadService {
         return "general";
     }
 
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public long getLastModified(FileEntity fileEntity) {
+        return fileEntity.getUploadedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    @Transactional(propagation = Propagation.SUPPORTS)
     public boolean isImageFile(FileEntity fileEntity) {
         return fileEntity.getFileType() != null && fileEntity.getFileType().startsWith("image/");
     }
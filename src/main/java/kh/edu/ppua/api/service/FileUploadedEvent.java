@@ -0,0 +1,9 @@
+package kh.edu.ppua.api.service;
+
+import kh.edu.ppua.api.model.FileEntity;
+
+/**
+ * Published by {@link FileUploadService} when a new file has been stored and recorded.
+ */
+public record FileUploadedEvent(FileEntity fileEntity) {
+}
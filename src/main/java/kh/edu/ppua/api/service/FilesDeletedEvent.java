@@ -0,0 +1,15 @@
+package kh.edu.ppua.api.service;
+
+import kh.edu.ppua.api.repository.FileRepository.StoredFileRow;
+
+import java.util.List;
+
+/**
+ * Published by {@link FileUploadService} when file records have been removed in bulk.
+ * The stored files are only deleted from disk once the removal has been committed. Shared blobs
+ * are not part of it: they are moved aside while their row is locked, see {@link FileUploadService}.
+ *
+ * @param files where the removed records kept their files
+ */
+public record FilesDeletedEvent(List<StoredFileRow> files) {
+}
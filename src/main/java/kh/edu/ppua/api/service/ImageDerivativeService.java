@@ -0,0 +1,428 @@
+package kh.edu.ppua.api.service;
+
+import kh.edu.ppua.api.exception.FileStorageException;
+import kh.edu.ppua.api.model.FileEntity;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.imageio.IIOException;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Resized / re-encoded variants of stored images for the view endpoint.
+ * <p>
+ * A variant is generated once (concurrent requests for the same variant wait for the first one)
+ * and kept in an on-disk cache under {@code <upload-dir>/.derivatives} that is bounded by
+ * {@code file.derivatives.max-cache-size} and evicts the least recently used variants first.
+ * An evicted variant stays on disk for {@code file.derivatives.eviction-delay}, so a request that
+ * was already handed its path can still open it, and is deleted by a later eviction.
+ * Variants are keyed by content hash, so identical images share them.
+ */
+@Service
+public class ImageDerivativeService {
+
+    private static final String DERIVATIVE_DIRECTORY = ".derivatives";
+
+    public static final String FIT_CONTAIN = "contain";
+    public static final String FIT_COVER = "cover";
+    public static final String FIT_FILL = "fill";
+
+    @Value("${file.derivatives.max-dimension:2048}")
+    private int maxDimension;
+
+    @Value("${file.derivatives.max-source-pixels:40000000}")
+    private long maxSourcePixels;
+
+    @Value("${file.derivatives.max-cache-size:536870912}") // 512MB default
+    private long maxCacheSize;
+
+    @Value("${file.derivatives.eviction-delay:5m}")
+    private Duration evictionDelay;
+
+    @Value("${file.derivatives.jpeg-quality:0.85}")
+    private float jpegQuality;
+
+    @Value("${file.derivatives.pregenerate-widths:}")
+    private int[] pregenerateWidths;
+
+    private final FileUploadService fileUploadService;
+    private final FileStorageService fileStorageService;
+    private final Path derivativeLocation;
+
+    // Access ordered, so iteration starts at the least recently used variant
+    private final LinkedHashMap<String, Long> cacheEntries = new LinkedHashMap<>(256, 0.75f, true);
+    // Evicted variants not yet deleted, oldest first, with their size and deletion deadline
+    private final LinkedHashMap<String, long[]> evicted = new LinkedHashMap<>();
+    private final Map<String, CompletableFuture<Path>> inFlight = new ConcurrentHashMap<>();
+    private long cacheSize;
+
+    @Autowired
+    public ImageDerivativeService(FileUploadService fileUploadService, FileStorageService fileStorageService) {
+        this.fileUploadService = fileUploadService;
+        this.fileStorageService = fileStorageService;
+        this.derivativeLocation = Paths.get(fileStorageService.getFileStoragePath(DERIVATIVE_DIRECTORY));
+
+        try {
+            Files.createDirectories(this.derivativeLocation);
+            loadCacheIndex();
+        } catch (IOException ex) {
+            throw new FileStorageException("Could not initialise the image derivative cache.", ex);
+        }
+    }
+
+    /**
+     * Validates the requested transformation and resolves its defaults against the source image.
+     */
+    public Variant resolveVariant(FileEntity fileEntity, Integer width, Integer height, String fit, String format) {
+        if ((width != null && (width < 1 || width > maxDimension))
+                || (height != null && (height < 1 || height > maxDimension))) {
+            throw new FileStorageException("Image width and height must be between 1 and " + maxDimension);
+        }
+
+        String resolvedFit = fit == null ? FIT_CONTAIN : fit.toLowerCase();
+        if (!List.of(FIT_CONTAIN, FIT_COVER, FIT_FILL).contains(resolvedFit)) {
+            throw new FileStorageException("Unsupported fit " + fit + ". Supported: contain, cover, fill");
+        }
+
+        String resolvedFormat;
+        if (format == null) {
+            resolvedFormat = "image/png".equals(fileEntity.getFileType()) || "image/gif".equals(fileEntity.getFileType())
+                    ? "png" : "jpeg";
+        } else {
+            resolvedFormat = format.toLowerCase();
+            if ("jpg".equals(resolvedFormat)) {
+                resolvedFormat = "jpeg";
+            }
+            if (!"jpeg".equals(resolvedFormat) && !"png".equals(resolvedFormat)) {
+                throw new FileStorageException("Unsupported format " + format + ". Supported: jpeg, png");
+            }
+        }
+
+        return new Variant(width, height, resolvedFit, resolvedFormat);
+    }
+
+    /**
+     * Returns the cached variant, generating it first if needed, or {@code null} if the
+     * source cannot be decoded (the caller should then serve the original).
+     */
+    public Path getDerivative(FileEntity fileEntity, StoredContent source, Variant variant) {
+        String key = cacheKey(fileEntity, variant);
+
+        Path cached = lookup(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        CompletableFuture<Path> generation = new CompletableFuture<>();
+        CompletableFuture<Path> existing = inFlight.putIfAbsent(key, generation);
+        if (existing != null) {
+            try {
+                return existing.join();
+            } catch (CompletionException ex) {
+                throw ex.getCause() instanceof RuntimeException cause ? cause : ex;
+            }
+        }
+
+        try {
+            Path derivative = lookup(key);
+            if (derivative == null) {
+                derivative = generate(source, key, variant);
+            }
+            generation.complete(derivative);
+            return derivative;
+        } catch (RuntimeException ex) {
+            generation.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(key, generation);
+        }
+    }
+
+    @Async
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void pregenerate(FileUploadedEvent event) {
+        FileEntity fileEntity = event.fileEntity();
+        if (pregenerateWidths.length == 0 || !fileUploadService.isImageFile(fileEntity)) {
+            return;
+        }
+
+        StoredContent source = fileUploadService.loadFileContent(fileEntity);
+        for (int width : pregenerateWidths) {
+            getDerivative(fileEntity, source, resolveVariant(fileEntity, width, null, null, null));
+        }
+    }
+
+    private Path generate(StoredContent source, String key, Variant variant) {
+        BufferedImage original;
+        try (InputStream inputStream = fileStorageService.openStream(source)) {
+            original = read(inputStream, source);
+        } catch (IIOException ex) {
+            // Known format but unsupported variant of it, e.g. CMYK JPEG
+            return null;
+        } catch (IOException ex) {
+            throw new FileStorageException("Could not read image " + source.name(), ex);
+        }
+        if (original == null) {
+            return null;
+        }
+
+        try {
+            BufferedImage resized = resize(original, variant);
+            Path target = derivativeLocation.resolve(key.substring(0, 2)).resolve(key);
+            Files.createDirectories(target.getParent());
+
+            Path temporary = Files.createTempFile(target.getParent(), "derivative", ".tmp");
+            try {
+                write(resized, variant.format(), temporary);
+                Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+
+            record(key, Files.size(target));
+            return target;
+        } catch (IOException ex) {
+            throw new FileStorageException("Could not create image variant " + key, ex);
+        }
+    }
+
+    // Checks the declared dimensions before decoding, as a small file can declare a huge bitmap
+    private BufferedImage read(InputStream inputStream, StoredContent source) throws IOException {
+        try (ImageInputStream imageInput = ImageIO.createImageInputStream(inputStream)) {
+            Iterator<ImageReader> readers = imageInput != null ? ImageIO.getImageReaders(imageInput) : null;
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(imageInput, true, true);
+                if ((long) reader.getWidth(0) * reader.getHeight(0) > maxSourcePixels) {
+                    throw new FileStorageException("Image " + source.name() + " is too large to resize, limit is "
+                            + maxSourcePixels + " pixels");
+                }
+                return reader.read(0, reader.getDefaultReadParam());
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private BufferedImage resize(BufferedImage original, Variant variant) {
+        int sourceWidth = original.getWidth();
+        int sourceHeight = original.getHeight();
+        Integer width = variant.width();
+        Integer height = variant.height();
+
+        int targetWidth;
+        int targetHeight;
+        int cropX = 0;
+        int cropY = 0;
+        int cropWidth = sourceWidth;
+        int cropHeight = sourceHeight;
+
+        if (width == null && height == null) {
+            targetWidth = sourceWidth;
+            targetHeight = sourceHeight;
+        } else if (width == null || height == null) {
+            // Only one dimension given: scale proportionally, never upscale
+            double scale = width != null ? (double) width / sourceWidth : (double) height / sourceHeight;
+            scale = Math.min(scale, 1.0);
+            targetWidth = Math.max(1, (int) Math.round(sourceWidth * scale));
+            targetHeight = Math.max(1, (int) Math.round(sourceHeight * scale));
+        } else if (FIT_FILL.equals(variant.fit())) {
+            targetWidth = width;
+            targetHeight = height;
+        } else if (FIT_COVER.equals(variant.fit())) {
+            // Crop the source to the target aspect ratio around its centre, then scale
+            targetWidth = width;
+            targetHeight = height;
+            double targetRatio = (double) width / height;
+            if ((double) sourceWidth / sourceHeight > targetRatio) {
+                cropWidth = Math.max(1, (int) Math.round(sourceHeight * targetRatio));
+                cropX = (sourceWidth - cropWidth) / 2;
+            } else {
+                cropHeight = Math.max(1, (int) Math.round(sourceWidth / targetRatio));
+                cropY = (sourceHeight - cropHeight) / 2;
+            }
+        } else {
+            double scale = Math.min(1.0, Math.min((double) width / sourceWidth, (double) height / sourceHeight));
+            targetWidth = Math.max(1, (int) Math.round(sourceWidth * scale));
+            targetHeight = Math.max(1, (int) Math.round(sourceHeight * scale));
+        }
+
+        BufferedImage current = original.getSubimage(cropX, cropY, cropWidth, cropHeight);
+        boolean opaque = "jpeg".equals(variant.format());
+        int imageType = opaque ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB;
+
+        // Halve repeatedly while far above the target size; a single bilinear pass looks aliased
+        int currentWidth = cropWidth;
+        int currentHeight = cropHeight;
+        do {
+            currentWidth = Math.max(targetWidth, currentWidth / 2 >= targetWidth ? currentWidth / 2 : targetWidth);
+            currentHeight = Math.max(targetHeight, currentHeight / 2 >= targetHeight ? currentHeight / 2 : targetHeight);
+            current = draw(current, currentWidth, currentHeight, imageType, opaque);
+        } while (currentWidth != targetWidth || currentHeight != targetHeight);
+
+        return current;
+    }
+
+    private BufferedImage draw(BufferedImage source, int width, int height, int imageType, boolean opaque) {
+        BufferedImage target = new BufferedImage(width, height, imageType);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            if (opaque) {
+                // JPEG has no alpha channel; flatten transparency onto white
+                graphics.setColor(Color.WHITE);
+                graphics.fillRect(0, 0, width, height);
+            }
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    private void write(BufferedImage image, String format, Path target) throws IOException {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(format);
+        if (!writers.hasNext()) {
+            throw new IOException("No image writer for " + format);
+        }
+        ImageWriter writer = writers.next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(target.toFile())) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if ("jpeg".equals(format)) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(jpegQuality);
+            }
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private String cacheKey(FileEntity fileEntity, Variant variant) {
+        String base = fileEntity.getContentHash() != null ? fileEntity.getContentHash() : fileEntity.getStoredFileName();
+        return base + "-" + variant.key();
+    }
+
+    private synchronized Path lookup(String key) {
+        Path path = derivativeLocation.resolve(key.substring(0, 2)).resolve(key);
+        if (cacheEntries.get(key) == null) {
+            // Evicted but not deleted yet: take it back instead of generating it again
+            long[] pending = evicted.remove(key);
+            if (pending == null || !Files.exists(path)) {
+                return null;
+            }
+            cacheEntries.put(key, pending[0]);
+            cacheSize += pending[0];
+            return path;
+        }
+        if (!Files.exists(path)) {
+            cacheSize -= cacheEntries.remove(key);
+            return null;
+        }
+        return path;
+    }
+
+    private synchronized void record(String key, long size) {
+        Long previous = cacheEntries.put(key, size);
+        cacheSize += size - (previous != null ? previous : 0);
+
+        evicted.remove(key);
+        deleteEvicted();
+
+        // Only unlist the variant here; requests that already hold its path may not have opened it yet
+        long deadline = System.nanoTime() + evictionDelay.toNanos();
+        Iterator<Map.Entry<String, Long>> eldest = cacheEntries.entrySet().iterator();
+        while (cacheSize > maxCacheSize && eldest.hasNext()) {
+            Map.Entry<String, Long> entry = eldest.next();
+            if (entry.getKey().equals(key)) {
+                continue;
+            }
+            evicted.put(entry.getKey(), new long[]{entry.getValue(), deadline});
+            cacheSize -= entry.getValue();
+            eldest.remove();
+        }
+    }
+
+    private void deleteEvicted() {
+        long now = System.nanoTime();
+        Iterator<Map.Entry<String, long[]>> oldest = evicted.entrySet().iterator();
+        while (oldest.hasNext()) {
+            Map.Entry<String, long[]> entry = oldest.next();
+            if (entry.getValue()[1] - now > 0) {
+                break;
+            }
+            try {
+                Files.deleteIfExists(derivativeLocation.resolve(entry.getKey().substring(0, 2)).resolve(entry.getKey()));
+            } catch (IOException ex) {
+                // Retried on the next eviction
+                continue;
+            }
+            oldest.remove();
+        }
+    }
+
+    // Rebuild the LRU order from file modification times after a restart
+    private void loadCacheIndex() throws IOException {
+        try (Stream<Path> files = Files.walk(derivativeLocation, 2)) {
+            List<Path> derivatives = files
+                    .filter(Files::isRegularFile)
+                    .filter(path -> !path.getFileName().toString().endsWith(".tmp"))
+                    .sorted(Comparator.comparingLong(path -> path.toFile().lastModified()))
+                    .toList();
+            for (Path derivative : derivatives) {
+                long size = Files.size(derivative);
+                cacheEntries.put(derivative.getFileName().toString(), size);
+                cacheSize += size;
+            }
+        }
+    }
+
+    /**
+     * A requested transformation with its defaults resolved.
+     */
+    public record Variant(Integer width, Integer height, String fit, String format) {
+
+        public String key() {
+            return "w" + (width != null ? width : 0) + "-h" + (height != null ? height : 0) + "-" + fit + "." + format;
+        }
+
+        public String contentType() {
+            return "png".equals(format) ? "image/png" : "image/jpeg";
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package kh.edu.ppua.api.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import kh.edu.ppua.api.config.CacheConfig;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps news responses as ready-to-send JSON and gzip bytes, so a hot read skips the database,
+ * entity hydration and serialization.
+ * <p>
+ * Entries are keyed by a data version that {@link NewsService} bumps after every write. A read
+ * that started before a write can only ever store its result under the old version, so it is
+ * never served after the write.
+ */
+@Component
+public class NewsResponseCache {
+
+    private final Cache<Object, Object> responses;
+    private final ObjectMapper objectMapper;
+
+    // Seeded with the start time so versions from before a restart are never reused
+    private final AtomicLong version = new AtomicLong(System.currentTimeMillis());
+
+    @Autowired
+    public NewsResponseCache(CacheManager cacheManager, ObjectMapper objectMapper) {
+        CaffeineCache cache = (CaffeineCache) cacheManager.getCache(CacheConfig.NEWS_RESPONSES);
+        this.responses = cache.getNativeCache();
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Returns the encoded response for {@code key}, rendering it with {@code loader} on a miss.
+     * Concurrent misses for the same key share one render.
+     *
+     * @return the cached response, or {@code null} if the loader returned {@code null}
+     */
+    public CachedResponse get(String key, Supplier<?> loader) {
+        String versionedKey = version.get() + ":" + key;
+        return (CachedResponse) responses.get(versionedKey, k -> {
+            Object value = loader.get();
+            return value != null ? encode(value) : null;
+        });
+    }
+
+    public void invalidate() {
+        version.incrementAndGet();
+        responses.invalidateAll();
+    }
+
+    private CachedResponse encode(Object value) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(value);
+
+            ByteArrayOutputStream gzip = new ByteArrayOutputStream(json.length / 4 + 64);
+            try (GZIPOutputStream outputStream = new GZIPOutputStream(gzip)) {
+                outputStream.write(json);
+            }
+
+            String etag = "\"" + DigestUtils.md5DigestAsHex(json);
+            return new CachedResponse(json, gzip.toByteArray(), etag + "\"", etag + "-gzip\"");
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Could not serialize news response", ex);
+        } catch (IOException ex) {
+            throw new IllegalStateException("Could not compress news response", ex);
+        }
+    }
+
+    /**
+     * One encoded response. The two encodings are different representations, so each has its own ETag.
+     */
+    public record CachedResponse(byte[] json, byte[] gzip, String etag, String gzipEtag) {
+    }
+}
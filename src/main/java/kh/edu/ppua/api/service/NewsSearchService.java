@@ -0,0 +1,251 @@
+package kh.edu.ppua.api.service;
+
+import kh.edu.ppua.api.model.NewsEntity;
+import kh.edu.ppua.api.repository.NewsRepository;
+import kh.edu.ppua.api.util.SearchTokenizer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over news title, author and content, ranked with BM25.
+ * <p>
+ * {@link NewsService} keeps it current on every write. It is built from the database at
+ * startup, and {@link #rebuild()} builds a fresh copy in the background of live searches
+ * for recovery; writes made while a rebuild runs are re-applied once it has finished.
+ */
+@Service
+public class NewsSearchService {
+
+    // BM25 parameters
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // A term in the title counts as much as this many occurrences in the content
+    private static final int TITLE_WEIGHT = 3;
+
+    private static final int REBUILD_BATCH_SIZE = 500;
+
+    private final NewsRepository repository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Set<Long> changedDuringRebuild = ConcurrentHashMap.newKeySet();
+    private InvertedIndex index = new InvertedIndex();
+    private boolean rebuilding;
+
+    @Autowired
+    public NewsSearchService(NewsRepository repository) {
+        this.repository = repository;
+    }
+
+    public void index(NewsEntity news) {
+        Map<String, Integer> terms = termFrequencies(news);
+        lock.writeLock().lock();
+        try {
+            index.put(news.getId(), terms);
+            if (rebuilding) {
+                changedDuringRebuild.add(news.getId());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            index.remove(id);
+            if (rebuilding) {
+                changedDuringRebuild.add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the ids of the news matching every term of {@code query}, best match first.
+     */
+    public SearchHits search(String query, long offset, int limit) {
+        Set<String> terms = new LinkedHashSet<>(SearchTokenizer.tokenize(query));
+        if (terms.isEmpty()) {
+            return new SearchHits(0, List.of());
+        }
+
+        lock.readLock().lock();
+        try {
+            List<Map<Long, Integer>> postings = new ArrayList<>(terms.size());
+            for (String term : terms) {
+                Map<Long, Integer> termPostings = index.postings.get(term);
+                if (termPostings == null) {
+                    return new SearchHits(0, List.of());
+                }
+                postings.add(termPostings);
+            }
+            // Walk the rarest term's postings and check the others against it
+            postings.sort(Comparator.comparingInt(Map::size));
+
+            int documentCount = index.documents.size();
+            double averageLength = (double) index.totalLength / documentCount;
+            List<ScoredNews> matches = new ArrayList<>();
+
+            candidates:
+            for (Long id : postings.get(0).keySet()) {
+                int length = index.documents.get(id).length();
+                double score = 0;
+                for (Map<Long, Integer> termPostings : postings) {
+                    Integer frequency = termPostings.get(id);
+                    if (frequency == null) {
+                        continue candidates;
+                    }
+                    double idf = Math.log(1 + (documentCount - termPostings.size() + 0.5) / (termPostings.size() + 0.5));
+                    score += idf * frequency * (K1 + 1) / (frequency + K1 * (1 - B + B * length / averageLength));
+                }
+                matches.add(new ScoredNews(id, score));
+            }
+
+            if (offset >= matches.size()) {
+                return new SearchHits(matches.size(), List.of());
+            }
+
+            matches.sort(Comparator.comparingDouble(ScoredNews::score).reversed()
+                    .thenComparing(ScoredNews::id, Comparator.reverseOrder()));
+            List<Long> page = matches.stream()
+                    .skip(offset)
+                    .limit(limit)
+                    .map(ScoredNews::id)
+                    .toList();
+            return new SearchHits(matches.size(), page);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        rebuild();
+    }
+
+    /**
+     * Rebuilds the index from the database while searches keep using the current one.
+     *
+     * @return the number of news items indexed
+     */
+    public synchronized int rebuild() {
+        lock.writeLock().lock();
+        try {
+            rebuilding = true;
+            changedDuringRebuild.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        InvertedIndex rebuilt = new InvertedIndex();
+        try {
+            long lastId = 0;
+            List<NewsEntity> batch;
+            do {
+                batch = repository.findByIdGreaterThanOrderByIdAsc(lastId, Limit.of(REBUILD_BATCH_SIZE));
+                for (NewsEntity news : batch) {
+                    rebuilt.put(news.getId(), termFrequencies(news));
+                    lastId = news.getId();
+                }
+            } while (batch.size() == REBUILD_BATCH_SIZE);
+        } catch (RuntimeException ex) {
+            lock.writeLock().lock();
+            try {
+                rebuilding = false;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw ex;
+        }
+
+        List<Long> changed;
+        lock.writeLock().lock();
+        try {
+            index = rebuilt;
+            rebuilding = false;
+            changed = new ArrayList<>(changedDuringRebuild);
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        // The rebuild may have read these rows before they were written, so take them from the database again
+        for (Long id : changed) {
+            repository.findById(id).ifPresentOrElse(this::index, () -> remove(id));
+        }
+        return rebuilt.documents.size();
+    }
+
+    private Map<String, Integer> termFrequencies(NewsEntity news) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String term : SearchTokenizer.tokenize(news.getTitle())) {
+            frequencies.merge(term, TITLE_WEIGHT, Integer::sum);
+        }
+        for (String term : SearchTokenizer.tokenize(news.getAuthor())) {
+            frequencies.merge(term, 1, Integer::sum);
+        }
+        for (String term : SearchTokenizer.tokenize(news.getContent())) {
+            frequencies.merge(term, 1, Integer::sum);
+        }
+        return frequencies;
+    }
+
+    /**
+     * One page of search results.
+     *
+     * @param total number of matching news items
+     * @param ids   ids on this page, in rank order
+     */
+    public record SearchHits(int total, List<Long> ids) {
+    }
+
+    private record ScoredNews(Long id, double score) {
+    }
+
+    private record IndexedDocument(Map<String, Integer> terms, int length) {
+    }
+
+    private static final class InvertedIndex {
+
+        private final Map<String, Map<Long, Integer>> postings = new HashMap<>();
+        private final Map<Long, IndexedDocument> documents = new HashMap<>();
+        private long totalLength;
+
+        void put(Long id, Map<String, Integer> terms) {
+            remove(id);
+            int length = terms.values().stream().mapToInt(Integer::intValue).sum();
+            documents.put(id, new IndexedDocument(terms, length));
+            terms.forEach((term, frequency) -> postings.computeIfAbsent(term, key -> new HashMap<>()).put(id, frequency));
+            totalLength += length;
+        }
+
+        void remove(Long id) {
+            IndexedDocument document = documents.remove(id);
+            if (document == null) {
+                return;
+            }
+            for (String term : document.terms().keySet()) {
+                Map<Long, Integer> termPostings = postings.get(term);
+                termPostings.remove(id);
+                if (termPostings.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+            totalLength -= document.length();
+        }
+    }
+}
@@ -1,13 +1,29 @@
 package kh.edu.ppua.api.service;
 
+import kh.edu.ppua.api.config.PaginationConfig;
+import kh.edu.ppua.api.dto.BulkImportRes;
+import kh.edu.ppua.api.dto.CursorPageRes;
+import kh.edu.ppua.api.dto.NewsSearchRes;
+import kh.edu.ppua.api.dto.NewsSummaryRes;
+import kh.edu.ppua.api.dto.SyncRes;
 import kh.edu.ppua.api.model.NewsEntity;
 import kh.edu.ppua.api.repository.NewsRepository;
+import kh.edu.ppua.api.util.PageCursor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.text.BreakIterator;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class NewsService {
@@ -15,17 +31,147 @@ public class NewsService {
     @Autowired
     private NewsRepository repository;
 
+    @Autowired
+    private PaginationConfig paginationConfig;
+
+    @Autowired
+    private NewsResponseCache responseCache;
+
+    @Autowired
+    private NewsSearchService searchService;
+
+    @Autowired
+    private BulkImportService importService;
+
+    @Autowired
+    private SyncService syncService;
+
+    @Value("${news.excerpt-length:200}")
+    private int excerptLength;
+
     public List<NewsEntity> getAllNews() {
         return repository.findAll();
     }
 
+    // Newest first, continuing after the given cursor
+    public CursorPageRes<NewsEntity> getNewsPage(String cursor, Integer size) {
+        int pageSize = paginationConfig.resolvePageSize(size);
+        PageCursor after = PageCursor.decode(cursor, PageCursor.LATEST);
+        Limit limit = Limit.of(pageSize + 1);
+
+        List<NewsEntity> rows = after.timestamp() != null
+                ? repository.findPageBefore(after.timestamp(), after.id(), limit)
+                : repository.findUndatedPageBefore(after.id(), limit);
+        return CursorPageRes.of(rows, pageSize, news -> new PageCursor(news.getPublishedDate(), news.getId()));
+    }
+
+    // Newest first, like getNewsPage, but without the full content
+    public CursorPageRes<NewsSummaryRes> getNewsSummaryPage(String cursor, Integer size) {
+        int pageSize = paginationConfig.resolvePageSize(size);
+        PageCursor after = PageCursor.decode(cursor, PageCursor.LATEST);
+        Limit limit = Limit.of(pageSize + 1);
+
+        // One character more than the excerpt shows, to tell whether the content goes on
+        List<NewsRepository.NewsSummaryRow> rows = after.timestamp() != null
+                ? repository.findSummaryPageBefore(after.timestamp(), after.id(), excerptLength + 1, limit)
+                : repository.findUndatedSummaryPageBefore(after.id(), excerptLength + 1, limit);
+        return CursorPageRes.of(rows, pageSize, row -> new PageCursor(row.getPublishedDate(), row.getId()))
+                .map(this::toSummary);
+    }
+
+    public List<NewsSummaryRes> getAllNewsSummaries() {
+        return repository.findAllSummaries(excerptLength + 1).stream()
+                .map(this::toSummary)
+                .toList();
+    }
+
+    // News created, updated or deleted after the token; every news item when there is no token
+    public SyncRes<NewsEntity> syncNews(String since) {
+        return syncService.sync(SyncService.NEWS, since, repository::findAll, repository::findChangedBetween);
+    }
+
+    // Ranked full-text search over title, author and content
+    public NewsSearchRes searchNews(String query, int page, Integer size) {
+        int pageSize = paginationConfig.resolvePageSize(size);
+        int pageNumber = Math.max(page, 0);
+        NewsSearchService.SearchHits hits = searchService.search(query, (long) pageNumber * pageSize, pageSize);
+
+        Map<Long, NewsEntity> newsById = repository.findAllById(hits.ids()).stream()
+                .collect(Collectors.toMap(NewsEntity::getId, Function.identity()));
+        List<NewsEntity> items = hits.ids().stream()
+                .map(newsById::get)
+                .filter(Objects::nonNull)
+                .toList();
+
+        return NewsSearchRes.builder()
+                .query(query)
+                .total(hits.total())
+                .page(pageNumber)
+                .size(pageSize)
+                .items(items)
+                .build();
+    }
+
+    private NewsSummaryRes toSummary(NewsRepository.NewsSummaryRow row) {
+        return NewsSummaryRes.builder()
+                .id(row.getId())
+                .title(row.getTitle())
+                .author(row.getAuthor())
+                .publishedDate(row.getPublishedDate())
+                .excerpt(excerpt(row.getContentStart()))
+                .build();
+    }
+
+    // Cuts at a word break when there is one near the end, and never inside a Khmer character cluster
+    private String excerpt(String contentStart) {
+        if (contentStart == null) {
+            return null;
+        }
+        // The prefix is one character longer than an excerpt when the content goes on (SQL counts code points)
+        boolean truncated = contentStart.codePointCount(0, contentStart.length()) > excerptLength;
+        String text = contentStart.replaceAll("\\s+", " ").strip();
+        if (!truncated) {
+            return text;
+        }
+
+        int end = Math.min(text.length(), excerptLength);
+        int space = text.lastIndexOf(' ', end);
+        if (space >= excerptLength * 2 / 3) {
+            end = space;
+        } else {
+            BreakIterator characters = BreakIterator.getCharacterInstance();
+            characters.setText(text);
+            if (!characters.isBoundary(end)) {
+                end = characters.preceding(end);
+            }
+        }
+        return text.substring(0, end).stripTrailing() + "…";
+    }
+
+    public int rebuildSearchIndex() {
+        return searchService.rebuild();
+    }
+
     public Optional<NewsEntity> getNewsById(Long id) {
         return repository.findById(id);
     }
 
     public NewsEntity createNews(NewsEntity news) {
         news.setPublishedDate(LocalDateTime.now());
-        return repository.save(news);
+        NewsEntity saved = repository.save(news);
+        searchService.index(saved);
+        responseCache.invalidate();
+        return saved;
+    }
+
+    // Imported rows keep their publishedDate, so news migrated from the old portal keeps its dates
+    public BulkImportRes importNews(InputStream input, String contentType, Integer batchSize) throws IOException {
+        return importService.importRows(input, contentType, NewsEntity.class,
+                news -> news.getTitle() == null || news.getTitle().isBlank() ? "title is required" : null, batchSize,
+                () -> {
+                    searchService.rebuild();
+                    responseCache.invalidate();
+                });
     }
 
     public NewsEntity updateNews(Long id, NewsEntity newsDetails) {
@@ -34,10 +180,15 @@ public class NewsService {
         news.setTitle(newsDetails.getTitle());
         news.setContent(newsDetails.getContent());
         news.setAuthor(newsDetails.getAuthor());
-        return repository.save(news);
+        NewsEntity saved = repository.save(news);
+        searchService.index(saved);
+        responseCache.invalidate();
+        return saved;
     }
 
     public void deleteNews(Long id) {
-        repository.deleteById(id);
+        syncService.delete(SyncService.NEWS, id, repository::deleteById);
+        searchService.remove(id);
+        responseCache.invalidate();
     }
 }
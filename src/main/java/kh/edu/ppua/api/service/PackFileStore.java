@@ -0,0 +1,520 @@
+package kh.edu.ppua.api.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import kh.edu.ppua.api.exception.FileStorageException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Log-structured store for small files. Instead of one file (and inode) each, small uploads are
+ * appended as records to large segment files, and an in-memory index maps each stored name to
+ * its segment, offset and length.
+ * <p>
+ * Record layout: magic, name length, data length ({@code -1} for a deletion), CRC-32 of name and
+ * data, the name, then the data. The index is rebuilt by scanning the segments on startup; a
+ * record torn by a crash ends its segment and is truncated away.
+ * <p>
+ * Full segments are sealed and memory-mapped, so reads are slices of the mapping. Deletes append
+ * a tombstone naming the segment that held the deleted record; a scheduled compaction copies the
+ * live records of mostly-dead segments to the active segment. A tombstone counts as live, and is
+ * copied along, only until that segment has been removed. Compacted segments are kept until the
+ * next compaction run, so a request that located a file just before it moved can still read the
+ * old copy.
+ */
+@Service
+public class PackFileStore {
+
+    public static final String PATH_PREFIX = "packs/";
+
+    private static final String PACK_DIRECTORY = "packs";
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".pack";
+    private static final int RECORD_MAGIC = 0x50414B31; // "PAK1"
+    // Data length of a tombstone; its data is the id of the segment that held the deleted record
+    private static final int TOMBSTONE = -1;
+    private static final int TOMBSTONE_DATA_SIZE = 4;
+    private static final int HEADER_SIZE = 4 + 2 + 4 + 4;
+
+    private final boolean enabled;
+    private final int maxFileSize;
+    private final long segmentSize;
+    private final double compactionThreshold;
+    private final Path packLocation;
+
+    private final Map<String, Entry> index = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Integer, Segment> segments = new ConcurrentSkipListMap<>();
+    private final Object writeLock = new Object();
+    private Segment active;
+
+    public PackFileStore(@Value("${file.upload-dir}") String uploadDir,
+                         @Value("${file.pack.enabled:false}") boolean enabled,
+                         @Value("${file.pack.max-file-size:65536}") int maxFileSize,
+                         @Value("${file.pack.segment-size:268435456}") long segmentSize,
+                         @Value("${file.pack.compaction-threshold:0.5}") double compactionThreshold,
+                         MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.maxFileSize = maxFileSize;
+        // Sealed segments are mapped whole, and a mapping is limited to 2GB
+        this.segmentSize = Math.min(segmentSize, Integer.MAX_VALUE);
+        this.compactionThreshold = compactionThreshold;
+        this.packLocation = Paths.get(uploadDir).toAbsolutePath().normalize().resolve(PACK_DIRECTORY);
+
+        if (!enabled) {
+            return;
+        }
+        try {
+            Files.createDirectories(packLocation);
+            open();
+        } catch (IOException ex) {
+            throw new FileStorageException("Could not open the pack store in " + packLocation, ex);
+        }
+
+        Gauge.builder("file.pack.segments", segments, Map::size)
+                .description("Pack segment files, including compacted ones awaiting removal")
+                .register(meterRegistry);
+        Gauge.builder("file.pack.size", this, store -> store.sumSegments(segment -> segment.size))
+                .description("Bytes in pack segments")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("file.pack.live", this, store -> store.sumSegments(segment -> segment.liveBytes.get()))
+                .description("Bytes in pack segments still needed: stored files and the tombstones hiding deleted ones")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Whether a file of this size goes into the pack store rather than a file of its own.
+     */
+    public boolean accepts(long size) {
+        return enabled && size <= maxFileSize;
+    }
+
+    public int getMaxFileSize() {
+        return maxFileSize;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isPackPath(String storagePath) {
+        return storagePath != null && storagePath.startsWith(PATH_PREFIX);
+    }
+
+    /**
+     * Appends a file and returns its storage path ({@code packs/<stored name>}).
+     */
+    public String append(String storedFileName, byte[] data) {
+        synchronized (writeLock) {
+            try {
+                updateIndex(storedFileName, write(storedFileName, data));
+            } catch (IOException ex) {
+                throw new FileStorageException("Could not store file " + storedFileName + " in the pack store", ex);
+            }
+        }
+        return PATH_PREFIX + storedFileName;
+    }
+
+    public StoredContent locate(String storagePath) {
+        String storedFileName = storagePath.substring(PATH_PREFIX.length());
+        Entry entry = index.get(storedFileName);
+        if (entry == null) {
+            throw new FileStorageException("File not found " + storedFileName);
+        }
+        return new StoredContent(segments.get(entry.segment()).path, entry.offset(), entry.length(), storedFileName);
+    }
+
+    public InputStream openStream(String storedFileName) throws IOException {
+        Entry entry = index.get(storedFileName);
+        if (entry == null) {
+            throw new FileStorageException("File not found " + storedFileName);
+        }
+        Segment segment = segments.get(entry.segment());
+        MappedByteBuffer mapped = segment.mapped;
+        if (mapped != null) {
+            return new ByteBufferInputStream(mapped.slice((int) entry.offset(), entry.length()));
+        }
+
+        // The active segment is still growing, so it is read with a positional read instead of a mapping
+        ByteBuffer data = ByteBuffer.allocate(entry.length());
+        readFully(segment.channel, data, entry.offset());
+        return new ByteBufferInputStream(data.flip());
+    }
+
+    public void delete(String storagePath) {
+        String storedFileName = storagePath.substring(PATH_PREFIX.length());
+        synchronized (writeLock) {
+            Entry entry = index.get(storedFileName);
+            if (entry == null) {
+                return;
+            }
+            try {
+                writeTombstone(storedFileName, entry.segment());
+            } catch (IOException ex) {
+                throw new FileStorageException("Could not delete file " + storedFileName + " from the pack store", ex);
+            }
+            updateIndex(storedFileName, null);
+        }
+    }
+
+    /**
+     * Removes the segments compacted by the previous run, then rewrites every sealed segment in
+     * which at least {@code file.pack.compaction-threshold} of the bytes are dead.
+     */
+    @Scheduled(fixedDelayString = "${file.pack.compaction-interval:PT10M}")
+    public void compact() {
+        if (!enabled) {
+            return;
+        }
+        removeRetiredSegments();
+
+        for (Segment segment : segments.values()) {
+            if (segment == active || segment.retired || segment.size == 0) {
+                continue;
+            }
+            double deadRatio = 1 - (double) segment.liveBytes.get() / segment.size;
+            if (deadRatio >= compactionThreshold) {
+                try {
+                    compact(segment);
+                } catch (IOException ex) {
+                    // Records already copied are indexed at their new location; the rest stay where they are
+                    throw new FileStorageException("Could not compact pack segment " + segment.path.getFileName(), ex);
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        synchronized (writeLock) {
+            for (Segment segment : segments.values()) {
+                try {
+                    if (segment == active) {
+                        segment.channel.force(false);
+                    }
+                    segment.channel.close();
+                } catch (IOException ignored) {
+                    // shutting down
+                }
+            }
+        }
+    }
+
+    private void compact(Segment segment) throws IOException {
+        ByteBuffer buffer = segment.mapped;
+
+        long position = 0;
+        while (position < segment.size) {
+            int pos = (int) position;
+            int nameLength = buffer.getShort(pos + 4) & 0xFFFF;
+            int dataLength = buffer.getInt(pos + 6);
+            byte[] nameBytes = new byte[nameLength];
+            buffer.get(pos + HEADER_SIZE, nameBytes);
+            String name = new String(nameBytes, StandardCharsets.UTF_8);
+            long dataOffset = position + HEADER_SIZE + nameLength;
+
+            if (dataLength == TOMBSTONE) {
+                int target = buffer.getInt((int) dataOffset);
+                synchronized (writeLock) {
+                    // Still needed while the deleted record's segment exists, even retired (a restart would scan it)
+                    if (target != segment.id && segments.containsKey(target)) {
+                        writeTombstone(name, target);
+                    }
+                }
+            } else {
+                Entry current = index.get(name);
+                if (current != null && current.segment() == segment.id && current.offset() == dataOffset) {
+                    byte[] data = new byte[dataLength];
+                    buffer.get((int) dataOffset, data);
+                    synchronized (writeLock) {
+                        // Skip files deleted while the data was being copied
+                        if (current.equals(index.get(name))) {
+                            updateIndex(name, write(name, data));
+                        }
+                    }
+                }
+            }
+            position = dataOffset + dataSize(dataLength);
+        }
+        segment.retired = true;
+    }
+
+    private void removeRetiredSegments() {
+        synchronized (writeLock) {
+            List<Segment> retired = segments.values().stream().filter(segment -> segment.retired).toList();
+            for (Segment segment : retired) {
+                try {
+                    segment.channel.close();
+                    Files.deleteIfExists(segment.path);
+                    segments.remove(segment.id);
+                    // Tombstones for records in this segment are no longer needed
+                    for (Segment holder : segments.values()) {
+                        Long tombstoneBytes = holder.tombstoneBytes.remove(segment.id);
+                        if (tombstoneBytes != null) {
+                            holder.liveBytes.addAndGet(-tombstoneBytes);
+                        }
+                    }
+                } catch (IOException ex) {
+                    throw new FileStorageException("Could not delete pack segment " + segment.path.getFileName(), ex);
+                }
+            }
+        }
+    }
+
+    private void open() throws IOException {
+        List<Path> segmentFiles;
+        try (Stream<Path> files = Files.list(packLocation)) {
+            segmentFiles = new ArrayList<>(files
+                    .filter(file -> file.getFileName().toString().startsWith(SEGMENT_PREFIX)
+                            && file.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .toList());
+        }
+
+        synchronized (writeLock) {
+            for (Path file : segmentFiles) {
+                String fileName = file.getFileName().toString();
+                int id = Integer.parseInt(fileName.substring(SEGMENT_PREFIX.length(), fileName.length() - SEGMENT_SUFFIX.length()));
+                Segment segment = new Segment(id, file);
+                segments.put(id, segment);
+                recover(segment);
+            }
+
+            Map.Entry<Integer, Segment> last = segments.lastEntry();
+            for (Segment segment : segments.values()) {
+                if (last == null || segment != last.getValue() || segment.size >= segmentSize) {
+                    seal(segment);
+                }
+            }
+            if (last != null && last.getValue().mapped == null) {
+                active = last.getValue();
+            } else {
+                active = createSegment(last != null ? last.getKey() + 1 : 1);
+            }
+        }
+    }
+
+    private void recover(Segment segment) throws IOException {
+        long length = segment.channel.size();
+        long position = 0;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+
+        while (position + HEADER_SIZE <= length) {
+            readFully(segment.channel, header.clear(), position);
+            header.flip();
+            int magic = header.getInt();
+            int nameLength = header.getShort() & 0xFFFF;
+            int dataLength = header.getInt();
+            int checksum = header.getInt();
+            if (magic != RECORD_MAGIC || dataLength < TOMBSTONE) {
+                break;
+            }
+            long recordSize = HEADER_SIZE + nameLength + (long) dataSize(dataLength);
+            if (position + recordSize > length) {
+                break;
+            }
+
+            ByteBuffer body = ByteBuffer.allocate((int) (recordSize - HEADER_SIZE));
+            readFully(segment.channel, body, position + HEADER_SIZE);
+            CRC32 crc = new CRC32();
+            crc.update(body.array());
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+
+            String name = new String(body.array(), 0, nameLength, StandardCharsets.UTF_8);
+            if (dataLength == TOMBSTONE) {
+                updateIndex(name, null);
+                trackTombstone(segment, body.getInt(nameLength), (int) recordSize);
+            } else {
+                updateIndex(name, new Entry(segment.id, position + HEADER_SIZE + nameLength, dataLength, (int) recordSize));
+            }
+            position += recordSize;
+        }
+
+        if (position < length) {
+            // Whatever follows the last complete record was torn by a crash
+            segment.channel.truncate(position);
+        }
+        segment.size = position;
+    }
+
+    // Must hold writeLock
+    private Entry write(String name, byte[] data) throws IOException {
+        int recordSize = recordSize(name, data);
+        long position = writeRecord(name, data.length, data);
+        return new Entry(active.id, position + recordSize - data.length, data.length, recordSize);
+    }
+
+    // Must hold writeLock; target is the segment that held the deleted record
+    private void writeTombstone(String name, int target) throws IOException {
+        byte[] data = ByteBuffer.allocate(TOMBSTONE_DATA_SIZE).putInt(target).array();
+        writeRecord(name, TOMBSTONE, data);
+        trackTombstone(active, target, recordSize(name, data));
+    }
+
+    // Must hold writeLock; returns the record's position in the (possibly new) active segment
+    private long writeRecord(String name, int dataLength, byte[] data) throws IOException {
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        int recordSize = HEADER_SIZE + nameBytes.length + data.length;
+        if (active.size > 0 && active.size + recordSize > segmentSize) {
+            active.channel.force(false);
+            seal(active);
+            active = createSegment(active.id + 1);
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(nameBytes);
+        crc.update(data);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                .putInt(RECORD_MAGIC)
+                .putShort((short) nameBytes.length)
+                .putInt(dataLength)
+                .putInt((int) crc.getValue())
+                .flip();
+        ByteBuffer[] record = {header, ByteBuffer.wrap(nameBytes), ByteBuffer.wrap(data)};
+
+        long position = active.size;
+        active.channel.position(position);
+        long remaining = recordSize;
+        while (remaining > 0) {
+            remaining -= active.channel.write(record);
+        }
+        active.size = position + recordSize;
+        return position;
+    }
+
+    // A tombstone is live while the segment it hides a record in exists; one in that same segment never is
+    private void trackTombstone(Segment holder, int target, int recordSize) {
+        if (target != holder.id && segments.containsKey(target)) {
+            holder.tombstoneBytes.merge(target, (long) recordSize, Long::sum);
+            holder.liveBytes.addAndGet(recordSize);
+        }
+    }
+
+    private static int recordSize(String name, byte[] data) {
+        return HEADER_SIZE + name.getBytes(StandardCharsets.UTF_8).length + data.length;
+    }
+
+    private static int dataSize(int dataLength) {
+        if (dataLength == TOMBSTONE) {
+            return TOMBSTONE_DATA_SIZE;
+        }
+        return Math.max(dataLength, 0);
+    }
+
+    // Must hold writeLock; entry == null removes the name
+    private void updateIndex(String name, Entry entry) {
+        Entry previous = entry != null ? index.put(name, entry) : index.remove(name);
+        if (previous != null) {
+            segments.get(previous.segment()).liveBytes.addAndGet(-previous.recordSize());
+        }
+        if (entry != null) {
+            segments.get(entry.segment()).liveBytes.addAndGet(entry.recordSize());
+        }
+    }
+
+    private Segment createSegment(int id) throws IOException {
+        Segment segment = new Segment(id, packLocation.resolve(SEGMENT_PREFIX + String.format("%06d", id) + SEGMENT_SUFFIX));
+        segments.put(id, segment);
+        return segment;
+    }
+
+    private void seal(Segment segment) throws IOException {
+        segment.mapped = segment.channel.map(FileChannel.MapMode.READ_ONLY, 0, segment.size);
+    }
+
+    private long sumSegments(ToLongFunction<Segment> value) {
+        return segments.values().stream().mapToLong(value).sum();
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of pack segment at position " + position);
+            }
+            position += read;
+        }
+    }
+
+    /**
+     * Location of a packed file's data.
+     */
+    private record Entry(int segment, long offset, int length, int recordSize) {
+    }
+
+    private static final class Segment {
+
+        final int id;
+        final Path path;
+        final FileChannel channel;
+        final AtomicLong liveBytes = new AtomicLong();
+        // Bytes of live tombstones by the segment holding the records they delete
+        final Map<Integer, Long> tombstoneBytes = new ConcurrentHashMap<>();
+        volatile long size;
+        volatile MappedByteBuffer mapped;
+        volatile boolean retired;
+
+        Segment(int id, Path path) throws IOException {
+            this.id = id;
+            this.path = path;
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+    }
+
+    private static final class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(len, buffer.remaining());
+            buffer.get(b, off, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
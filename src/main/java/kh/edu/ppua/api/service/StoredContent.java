@@ -0,0 +1,28 @@
+package kh.edu.ppua.api.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Location of a stored file's bytes: either a whole file, or a region of a pack segment.
+ *
+ * @param path       file holding the bytes
+ * @param offset     position of the first byte in {@code path}
+ * @param length     number of bytes
+ * @param packedName stored name inside the {@link PackFileStore}, or {@code null} for a file of its own
+ */
+public record StoredContent(Path path, long offset, long length, String packedName) {
+
+    public static StoredContent of(Path path) throws IOException {
+        return new StoredContent(path, 0, Files.size(path), null);
+    }
+
+    public boolean isPacked() {
+        return packedName != null;
+    }
+
+    public String name() {
+        return packedName != null ? packedName : path.getFileName().toString();
+    }
+}
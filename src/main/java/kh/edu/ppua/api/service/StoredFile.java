@@ -0,0 +1,13 @@
+package kh.edu.ppua.api.service;
+
+/**
+ * Result of writing an uploaded file to storage.
+ *
+ * @param storedFileName unique name the file was stored under
+ * @param contentHash    hex encoded SHA-256 of the stored bytes
+ * @param size           number of bytes written
+ * @param storagePath    physical location relative to the upload root (a blob or a sharded path), or
+ *                       {@code null} when the file lives at its flat {@code subDirectory/storedFileName}
+ */
+public record StoredFile(String storedFileName, String contentHash, long size, String storagePath) {
+}
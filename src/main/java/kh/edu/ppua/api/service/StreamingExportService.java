@@ -0,0 +1,208 @@
+package kh.edu.ppua.api.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import kh.edu.ppua.api.util.CsvWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Streams whole tables as NDJSON or CSV without loading them.
+ * <p>
+ * Rows are read through a forward-only cursor with a fixed fetch size (PostgreSQL only uses a
+ * cursor inside a transaction, so each export runs in a read-only one) and written to the
+ * response as they arrive, bypassing the persistence context. Memory use stays the same whatever
+ * the table size, and the first rows reach the client after the first fetch. The field names
+ * match the entities' JSON, so an export can be fed back into the bulk import.
+ */
+@Service
+public class StreamingExportService {
+
+    private static final List<Column> NEWS_COLUMNS = List.of(
+            new Column("id", "id"),
+            new Column("title", "title"),
+            new Column("content", "content"),
+            new Column("author", "author"),
+            new Column("publishedDate", "published_date"));
+
+    // storagePath is internal to the storage layer and is left out
+    private static final List<Column> FILE_COLUMNS = List.of(
+            new Column("id", "id"),
+            new Column("originalFileName", "original_file_name"),
+            new Column("storedFileName", "stored_file_name"),
+            new Column("fileType", "file_type"),
+            new Column("fileSize", "file_size"),
+            new Column("contentHash", "content_hash"),
+            new Column("filePath", "file_path"),
+            new Column("description", "description"),
+            new Column("category", "category"),
+            new Column("uploadedAt", "uploaded_at"),
+            new Column("entityId", "entity_id"),
+            new Column("entityType", "entity_type"));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final int fetchSize;
+
+    @Autowired
+    public StreamingExportService(DataSource dataSource, PlatformTransactionManager transactionManager,
+                                  ObjectMapper objectMapper,
+                                  @Value("${export.fetch-size:1000}") int fetchSize,
+                                  @Value("${export.timeout:30m}") Duration timeout) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        // An export of a large table outlives spring.transaction.default-timeout
+        this.transactionTemplate.setTimeout((int) timeout.toSeconds());
+        this.objectMapper = objectMapper;
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * @return the number of rows written
+     */
+    public long exportNews(Format format, OutputStream output) throws IOException {
+        return export("tb_news", NEWS_COLUMNS, format, output);
+    }
+
+    /**
+     * @return the number of rows written
+     */
+    public long exportFiles(Format format, OutputStream output) throws IOException {
+        return export("tbl_files", FILE_COLUMNS, format, output);
+    }
+
+    private long export(String table, List<Column> columns, Format format, OutputStream output) throws IOException {
+        String sql = "SELECT " + String.join(", ", columns.stream().map(Column::column).toList())
+                + " FROM " + table + " ORDER BY id";
+        RowWriter writer = format == Format.CSV ? csvWriter(columns, output) : ndjsonWriter(columns, output);
+        long[] rows = {0};
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(sql, (RowCallbackHandler) rs -> {
+                Object[] values = new Object[columns.size()];
+                for (int i = 0; i < values.length; i++) {
+                    Object value = rs.getObject(i + 1);
+                    values[i] = value instanceof Timestamp timestamp ? timestamp.toLocalDateTime() : value;
+                }
+                try {
+                    writer.write(values);
+                    // The first row straight away, then each fetched block, rather than whenever the buffer fills
+                    long count = ++rows[0];
+                    if (count == 1 || count % fetchSize == 0) {
+                        writer.flush();
+                    }
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }));
+        } catch (UncheckedIOException ex) {
+            // Usually the client went away; the cursor and transaction are already closed
+            throw ex.getCause();
+        }
+        writer.flush();
+        return rows[0];
+    }
+
+    private RowWriter csvWriter(List<Column> columns, OutputStream output) throws IOException {
+        BufferedWriter buffered = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        CsvWriter csv = new CsvWriter(buffered);
+        csv.writeRecord(columns.stream().map(Column::name).toArray());
+        return new RowWriter() {
+            @Override
+            public void write(Object[] values) throws IOException {
+                csv.writeRecord(values);
+            }
+
+            @Override
+            public void flush() throws IOException {
+                csv.flush();
+            }
+        };
+    }
+
+    private RowWriter ndjsonWriter(List<Column> columns, OutputStream output) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(output);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        return new RowWriter() {
+            @Override
+            public void write(Object[] values) throws IOException {
+                generator.writeStartObject();
+                for (int i = 0; i < values.length; i++) {
+                    generator.writeFieldName(columns.get(i).name());
+                    // Goes through the ObjectMapper, so dates come out as they do in the JSON APIs
+                    generator.writeObject(values[i]);
+                }
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+            }
+
+            @Override
+            public void flush() throws IOException {
+                generator.flush();
+            }
+        };
+    }
+
+    public enum Format {
+        NDJSON(BulkImportService.NDJSON_VALUE, "ndjson"),
+        CSV(BulkImportService.CSV_VALUE + ";charset=UTF-8", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        /**
+         * Returns the format with the given name (case-insensitive), or {@code null}.
+         */
+        public static Format of(String name) {
+            for (Format format : values()) {
+                if (format.extension.equals(name.toLowerCase(Locale.ROOT))) {
+                    return format;
+                }
+            }
+            return null;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    private record Column(String name, String column) {
+    }
+
+    private interface RowWriter {
+
+        void write(Object[] values) throws IOException;
+
+        void flush() throws IOException;
+    }
+}
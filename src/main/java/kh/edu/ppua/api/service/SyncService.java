@@ -0,0 +1,88 @@
+package kh.edu.ppua.api.service;
+
+import kh.edu.ppua.api.dto.SyncRes;
+import kh.edu.ppua.api.model.DeletedRecordEntity;
+import kh.edu.ppua.api.repository.DeletedRecordRepository;
+import kh.edu.ppua.api.util.PageCursor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Delta sync: the rows changed and deleted after a change token.
+ * <p>
+ * A token is a change timestamp, compared with {@code updatedAt} on the entities and
+ * {@code deletedAt} in the deletion log. Rows are stamped before their transaction commits, so a
+ * response only covers changes older than {@code sync.commit-lag}, by which time every write
+ * transaction has committed or timed out; anything newer comes with the next sync. Deletions are
+ * remembered for {@code sync.tombstone-retention}, and an older token gets the full list instead.
+ */
+@Service
+public class SyncService {
+
+    public static final String NEWS = "NEWS";
+    public static final String FACULTY = "FACULTY";
+
+    private final DeletedRecordRepository deletedRecordRepository;
+    private final Duration commitLag;
+    private final Duration tombstoneRetention;
+
+    @Autowired
+    public SyncService(DeletedRecordRepository deletedRecordRepository,
+                       @Value("${sync.commit-lag:30s}") Duration commitLag,
+                       @Value("${sync.tombstone-retention:30d}") Duration tombstoneRetention) {
+        this.deletedRecordRepository = deletedRecordRepository;
+        this.commitLag = commitLag;
+        this.tombstoneRetention = tombstoneRetention;
+    }
+
+    /**
+     * Deletes a row and logs its tombstone in the same transaction.
+     */
+    @Transactional
+    public void delete(String entityType, Long id, Consumer<Long> deleter) {
+        deleter.accept(id);
+        deletedRecordRepository.save(DeletedRecordEntity.builder()
+                .entityType(entityType)
+                .entityId(id)
+                .build());
+    }
+
+    /**
+     * @param snapshot       every row, for a first sync or an expired token
+     * @param changedBetween rows with {@code since < updatedAt <= until}
+     */
+    public <T> SyncRes<T> sync(String entityType, String since, Supplier<List<T>> snapshot,
+                               BiFunction<LocalDateTime, LocalDateTime, List<T>> changedBetween) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime until = now.minus(commitLag);
+        PageCursor from = PageCursor.decode(since, PageCursor.FIRST_ID);
+
+        if (from.timestamp() == null || from.timestamp().isBefore(now.minus(tombstoneRetention))) {
+            return new SyncRes<>(true, snapshot.get(), List.of(), new PageCursor(until, 0).encode());
+        }
+        // Synced again within the commit lag: nothing is settled yet, and the token must not move back
+        if (!from.timestamp().isBefore(until)) {
+            return new SyncRes<>(false, List.of(), List.of(), since);
+        }
+
+        List<T> changed = changedBetween.apply(from.timestamp(), until);
+        List<Long> deleted = deletedRecordRepository.findDeletedIds(entityType, from.timestamp(), until);
+        return new SyncRes<>(false, changed, deleted, new PageCursor(until, 0).encode());
+    }
+
+    @Scheduled(fixedDelayString = "${sync.tombstone-cleanup-interval:PT6H}")
+    @Transactional
+    public void removeExpiredTombstones() {
+        deletedRecordRepository.deleteByDeletedAtBefore(LocalDateTime.now().minus(tombstoneRetention));
+    }
+}
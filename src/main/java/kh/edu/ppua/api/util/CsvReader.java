@@ -0,0 +1,85 @@
+package kh.edu.ppua.api.util;
+
+import java.io.IOException;
+import java.io.PushbackReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Forward-only reader for RFC 4180 CSV: comma separated, fields optionally enclosed in double
+ * quotes, {@code ""} for a quote inside a quoted field, and CRLF or LF line endings. Quoted
+ * fields may span lines. Records are read one at a time, so input of any size can be processed.
+ */
+public class CsvReader {
+
+    private static final char BYTE_ORDER_MARK = '\uFEFF';
+
+    private final PushbackReader reader;
+    private boolean started;
+
+    public CsvReader(Reader reader) {
+        this.reader = new PushbackReader(reader, 1);
+    }
+
+    /**
+     * Returns the fields of the next record, or {@code null} at the end of the input.
+     * A blank line is returned as a single empty field.
+     */
+    public List<String> readRecord() throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean wasQuoted = false;
+        boolean empty = true;
+
+        int c;
+        while ((c = reader.read()) != -1) {
+            if (!started) {
+                started = true;
+                // Spreadsheet exports often start with a byte order mark
+                if (c == BYTE_ORDER_MARK) {
+                    continue;
+                }
+            }
+            empty = false;
+
+            if (quoted) {
+                if (c == '"') {
+                    int next = reader.read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        if (next != -1) {
+                            reader.unread(next);
+                        }
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.isEmpty() && !wasQuoted) {
+                quoted = true;
+                wasQuoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+                wasQuoted = false;
+            } else if (c == '\n') {
+                fields.add(field.toString());
+                return fields;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+        }
+
+        if (empty) {
+            return null;
+        }
+        if (quoted) {
+            throw new IOException("Unterminated quoted field at end of input");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
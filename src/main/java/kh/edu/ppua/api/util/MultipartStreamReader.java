@@ -0,0 +1,320 @@
+package kh.edu.ppua.api.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Forward-only reader for {@code multipart/form-data} request bodies.
+ * <p>
+ * Parts are exposed one at a time as streams that read straight from the underlying
+ * request, so an upload can be written to its destination while it is being received.
+ * Memory use is a single fixed-size buffer regardless of the size of the parts. A part's
+ * stream is only valid until {@link #nextPart()} is called again.
+ */
+public class MultipartStreamReader {
+
+    private static final int BUFFER_SIZE = 16 * 1024;
+    private static final int MAX_HEADER_SIZE = 8 * 1024;
+    private static final byte[] HEADER_END = {'\r', '\n', '\r', '\n'};
+
+    private final InputStream input;
+    private final byte[] delimiter;
+    private final byte[] buffer;
+    private int head;
+    private int tail;
+    private PartInputStream current;
+    private boolean finished;
+
+    public MultipartStreamReader(InputStream input, String boundary) {
+        this.input = input;
+        this.delimiter = ("\r\n--" + boundary).getBytes(StandardCharsets.ISO_8859_1);
+        this.buffer = new byte[BUFFER_SIZE + delimiter.length];
+
+        // The first boundary is not preceded by CRLF; seed one so every delimiter looks the same
+        this.buffer[0] = '\r';
+        this.buffer[1] = '\n';
+        this.tail = 2;
+
+        // Anything before the first boundary is a preamble that gets skipped
+        this.current = new PartInputStream();
+    }
+
+    /**
+     * Returns the {@code boundary} parameter of a multipart content type, or {@code null}.
+     */
+    public static String extractBoundary(String contentType) {
+        if (contentType == null) {
+            return null;
+        }
+        String boundary = parseParameters(contentType).get("boundary");
+        return boundary == null || boundary.isEmpty() ? null : boundary;
+    }
+
+    /**
+     * Advances to the next part, skipping whatever is left of the current one.
+     *
+     * @return the next part, or {@code null} once the closing boundary has been read
+     */
+    public Part nextPart() throws IOException {
+        if (finished) {
+            return null;
+        }
+        current.skipRemaining();
+
+        if (!ensure(2)) {
+            throw new IOException("Unexpected end of multipart stream");
+        }
+        if (buffer[head] == '-' && buffer[head + 1] == '-') {
+            finished = true;
+            return null;
+        }
+
+        // Transport padding may follow the boundary before the line break
+        while (ensure(1) && (buffer[head] == ' ' || buffer[head] == '\t')) {
+            head++;
+        }
+        if (!ensure(2) || buffer[head] != '\r' || buffer[head + 1] != '\n') {
+            throw new IOException("Malformed multipart boundary line");
+        }
+        head += 2;
+
+        Map<String, String> headers = readHeaders();
+        current = new PartInputStream();
+        return new Part(headers, current);
+    }
+
+    private Map<String, String> readHeaders() throws IOException {
+        Map<String, String> headers = new HashMap<>();
+
+        // A part without headers starts directly with the blank line
+        if (ensure(2) && buffer[head] == '\r' && buffer[head + 1] == '\n') {
+            head += 2;
+            return headers;
+        }
+
+        int end;
+        while ((end = indexOf(HEADER_END, head, tail)) < 0) {
+            if (tail - head >= MAX_HEADER_SIZE) {
+                throw new IOException("Multipart part headers exceed " + MAX_HEADER_SIZE + " bytes");
+            }
+            if (!fill()) {
+                throw new IOException("Unexpected end of multipart stream");
+            }
+        }
+
+        String block = new String(buffer, head, end - head, StandardCharsets.UTF_8);
+        head = end + HEADER_END.length;
+
+        for (String line : block.split("\r\n")) {
+            int colon = line.indexOf(':');
+            if (colon > 0) {
+                headers.put(line.substring(0, colon).trim().toLowerCase(Locale.ROOT), line.substring(colon + 1).trim());
+            }
+        }
+        return headers;
+    }
+
+    private boolean ensure(int count) throws IOException {
+        while (tail - head < count) {
+            if (!fill()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean fill() throws IOException {
+        if (head > 0) {
+            System.arraycopy(buffer, head, buffer, 0, tail - head);
+            tail -= head;
+            head = 0;
+        }
+        int read = input.read(buffer, tail, buffer.length - tail);
+        if (read == -1) {
+            return false;
+        }
+        tail += read;
+        return true;
+    }
+
+    private int indexOf(byte[] pattern, int from, int to) {
+        int last = to - pattern.length;
+        outer:
+        for (int i = from; i <= last; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (buffer[i + j] != pattern[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    static Map<String, String> parseParameters(String header) {
+        Map<String, String> parameters = new HashMap<>();
+        int length = header.length();
+        int index = header.indexOf(';');
+        while (index >= 0 && index < length) {
+            int start = index + 1;
+            int equals = header.indexOf('=', start);
+            int semicolon = header.indexOf(';', start);
+            if (equals < 0 || (semicolon >= 0 && semicolon < equals)) {
+                index = semicolon;
+                continue;
+            }
+            String name = header.substring(start, equals).trim().toLowerCase(Locale.ROOT);
+
+            int position = equals + 1;
+            while (position < length && header.charAt(position) == ' ') {
+                position++;
+            }
+            StringBuilder value = new StringBuilder();
+            if (position < length && header.charAt(position) == '"') {
+                position++;
+                while (position < length && header.charAt(position) != '"') {
+                    char c = header.charAt(position);
+                    if (c == '\\' && position + 1 < length) {
+                        c = header.charAt(++position);
+                    }
+                    value.append(c);
+                    position++;
+                }
+                index = header.indexOf(';', position);
+            } else {
+                int end = header.indexOf(';', position);
+                value.append(header, position, end < 0 ? length : end);
+                index = end;
+            }
+            parameters.putIfAbsent(name, value.toString().trim());
+        }
+        return parameters;
+    }
+
+    /**
+     * A single part of the multipart body.
+     */
+    public static final class Part {
+
+        private final String name;
+        private final String fileName;
+        private final String contentType;
+        private final InputStream inputStream;
+
+        Part(Map<String, String> headers, InputStream inputStream) {
+            Map<String, String> disposition = parseParameters(headers.getOrDefault("content-disposition", ""));
+            this.name = disposition.get("name");
+            this.fileName = stripPath(disposition.get("filename"));
+            this.contentType = headers.get("content-type");
+            this.inputStream = inputStream;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getFileName() {
+            return fileName;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public boolean isFile() {
+            return fileName != null;
+        }
+
+        public InputStream getInputStream() {
+            return inputStream;
+        }
+
+        /**
+         * Reads the part body as UTF-8 text, failing if it is longer than {@code maxBytes}.
+         */
+        public String readString(int maxBytes) throws IOException {
+            ByteArrayOutputStream value = new ByteArrayOutputStream();
+            byte[] chunk = new byte[1024];
+            int read;
+            while ((read = inputStream.read(chunk)) != -1) {
+                if (value.size() + read > maxBytes) {
+                    throw new IOException("Form field '" + name + "' exceeds " + maxBytes + " bytes");
+                }
+                value.write(chunk, 0, read);
+            }
+            return value.toString(StandardCharsets.UTF_8);
+        }
+
+        // Some browsers send the full client path as the file name
+        private static String stripPath(String fileName) {
+            if (fileName == null) {
+                return null;
+            }
+            int separator = Math.max(fileName.lastIndexOf('/'), fileName.lastIndexOf('\\'));
+            return separator >= 0 ? fileName.substring(separator + 1) : fileName;
+        }
+    }
+
+    private final class PartInputStream extends InputStream {
+
+        private boolean ended;
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) == -1 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (ended) {
+                return -1;
+            }
+            if (len == 0) {
+                return 0;
+            }
+            while (true) {
+                int available;
+                int index = indexOf(delimiter, head, tail);
+                if (index >= 0) {
+                    available = index - head;
+                    if (available == 0) {
+                        head += delimiter.length;
+                        ended = true;
+                        return -1;
+                    }
+                } else {
+                    // Keep enough bytes back to recognise a delimiter split across reads
+                    available = (tail - head) - (delimiter.length - 1);
+                    if (available <= 0) {
+                        if (!fill()) {
+                            throw new IOException("Unexpected end of multipart stream");
+                        }
+                        continue;
+                    }
+                }
+                int count = Math.min(available, len);
+                System.arraycopy(buffer, head, b, off, count);
+                head += count;
+                return count;
+            }
+        }
+
+        @Override
+        public int available() {
+            return 0;
+        }
+
+        void skipRemaining() throws IOException {
+            byte[] scratch = new byte[BUFFER_SIZE];
+            while (read(scratch, 0, scratch.length) != -1) {
+                // discard
+            }
+        }
+    }
+}
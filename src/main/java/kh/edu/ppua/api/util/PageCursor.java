@@ -0,0 +1,47 @@
+package kh.edu.ppua.api.util;
+
+import kh.edu.ppua.api.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in a keyset-paginated listing: the sort timestamp and id of the last row of a page.
+ * Clients receive it as an opaque URL-safe token and send it back to fetch the next page.
+ *
+ * @param timestamp sort key of the last row, or {@code null} for listings ordered by id only
+ *                  or rows without a timestamp
+ * @param id        id of the last row, used as the tie-breaker
+ */
+public record PageCursor(LocalDateTime timestamp, long id) {
+
+    // Sorts after every stored timestamp, so "rows before this cursor" is the first page of a newest-first listing
+    public static final PageCursor LATEST = new PageCursor(LocalDateTime.of(9999, 12, 31, 23, 59, 59), Long.MAX_VALUE);
+
+    public static final PageCursor FIRST_ID = new PageCursor(null, 0);
+
+    public String encode() {
+        String value = id + "," + (timestamp != null ? timestamp : "");
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a token produced by {@link #encode()}, returning {@code start} when no token was sent.
+     */
+    public static PageCursor decode(String token, PageCursor start) {
+        if (token == null || token.isBlank()) {
+            return start;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = value.indexOf(',');
+            long id = Long.parseLong(value.substring(0, separator));
+            String timestamp = value.substring(separator + 1);
+            return new PageCursor(timestamp.isEmpty() ? null : LocalDateTime.parse(timestamp), id);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException ex) {
+            throw new InvalidCursorException(token);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package kh.edu.ppua.api.util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Splits text into search terms for both Latin and Khmer script.
+ * <p>
+ * Latin (and other space-delimited) text is split into lower-cased words. Khmer is written
+ * without spaces between words, so every run of Khmer characters is indexed as overlapping
+ * character bigrams; a query then matches when all of its bigrams occur in the document.
+ * Zero-width spaces, which Khmer authors sometimes use as word breaks, end a run.
+ */
+public final class SearchTokenizer {
+
+    private SearchTokenizer() {
+    }
+
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC);
+
+        StringBuilder word = new StringBuilder();
+        List<Integer> khmerRun = new ArrayList<>();
+        int index = 0;
+        while (index < normalized.length()) {
+            int codePoint = normalized.codePointAt(index);
+            index += Character.charCount(codePoint);
+
+            if (isKhmerLetter(codePoint)) {
+                flushWord(word, tokens);
+                khmerRun.add(codePoint);
+            } else if (Character.isLetterOrDigit(codePoint)) {
+                flushKhmer(khmerRun, tokens);
+                word.appendCodePoint(codePoint);
+            } else {
+                flushWord(word, tokens);
+                flushKhmer(khmerRun, tokens);
+            }
+        }
+        flushWord(word, tokens);
+        flushKhmer(khmerRun, tokens);
+        return tokens;
+    }
+
+    // Khmer letters, vowel signs and digits; Khmer punctuation such as ។ separates like whitespace
+    private static boolean isKhmerLetter(int codePoint) {
+        if (Character.UnicodeScript.of(codePoint) != Character.UnicodeScript.KHMER) {
+            return false;
+        }
+        int type = Character.getType(codePoint);
+        return type != Character.OTHER_PUNCTUATION && type != Character.CURRENCY_SYMBOL
+                && type != Character.OTHER_SYMBOL;
+    }
+
+    private static void flushWord(StringBuilder word, List<String> tokens) {
+        if (!word.isEmpty()) {
+            tokens.add(word.toString().toLowerCase(Locale.ROOT));
+            word.setLength(0);
+        }
+    }
+
+    private static void flushKhmer(List<Integer> run, List<String> tokens) {
+        if (run.size() == 1) {
+            tokens.add(Character.toString(run.get(0)));
+        }
+        for (int i = 0; i + 1 < run.size(); i++) {
+            tokens.add(new StringBuilder().appendCodePoint(run.get(i)).appendCodePoint(run.get(i + 1)).toString());
+        }
+        run.clear();
+    }
+}
@@ -0,0 +1,301 @@
+package kh.edu.ppua.api.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.util.FileSystemUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * End-to-end load test of the REST API against an embedded PostgreSQL and a temporary upload
+ * directory. Excluded from the normal build; run it with {@code ./mvnw test -Pload-test}.
+ * <p>
+ * Every endpoint is driven on its own at {@code load.rate} requests per second with up to
+ * {@code load.concurrency} requests in flight. Per-endpoint throughput and p50/p90/p99/p99.9
+ * latencies are written to {@code target/load-test/} as a CSV (one timestamped file per run plus
+ * {@code latest.csv}) and as HdrHistogram percentile distributions ({@code .hgrm}).
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class ApiLoadTests {
+
+	private static final EmbeddedPostgres POSTGRES;
+	private static final Path UPLOAD_DIRECTORY;
+
+	static {
+		try {
+			POSTGRES = EmbeddedPostgres.start();
+			UPLOAD_DIRECTORY = Files.createTempDirectory("ppua-load");
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	private static final int RATE = Integer.getInteger("load.rate", 100);
+	private static final int CONCURRENCY = Integer.getInteger("load.concurrency", 16);
+	private static final Duration WARMUP = Duration.parse(System.getProperty("load.warmup", "PT5S"));
+	private static final Duration DURATION = Duration.parse(System.getProperty("load.duration", "PT15S"));
+	private static final Path REPORT_DIRECTORY = Paths.get("target", "load-test");
+	private static final String BOUNDARY = "----ppuaLoadTestBoundary";
+
+	@DynamicPropertySource
+	static void properties(DynamicPropertyRegistry registry) {
+		registry.add("spring.datasource.url", () -> POSTGRES.getJdbcUrl("postgres", "postgres"));
+		registry.add("spring.datasource.username", () -> "postgres");
+		registry.add("spring.datasource.password", () -> "");
+		registry.add("spring.jpa.show-sql", () -> "false");
+		registry.add("file.upload-dir", UPLOAD_DIRECTORY::toString);
+	}
+
+	@AfterAll
+	static void stop() throws IOException {
+		POSTGRES.close();
+		FileSystemUtils.deleteRecursively(UPLOAD_DIRECTORY);
+	}
+
+	@LocalServerPort
+	private int port;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+	private final AtomicInteger sequence = new AtomicInteger();
+
+	@Test
+	void apiUnderLoad() throws Exception {
+		byte[] document = randomBytes(64 * 1024);
+		byte[] image = pngImage(1200, 800);
+
+		List<String> documents = new ArrayList<>();
+		List<String> images = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			documents.add(uploadedName(upload(List.of(new FilePart("document-" + i + ".pdf", "application/pdf", document)))));
+			images.add(uploadedName(upload(List.of(new FilePart("photo-" + i + ".png", "image/png", image)))));
+		}
+		List<Long> newsIds = new ArrayList<>();
+		List<Long> facultyIds = new ArrayList<>();
+		for (int i = 0; i < 50; i++) {
+			newsIds.add(createdId(send(json("POST", "/api/v1/news", newsJson()))));
+			facultyIds.add(createdId(send(json("POST", "/api/v1/faculty", facultyJson()))));
+		}
+		Queue<Long> createdNews = new ConcurrentLinkedQueue<>();
+		Queue<Long> createdFaculties = new ConcurrentLinkedQueue<>();
+
+		LoadDriver driver = new LoadDriver(RATE, CONCURRENCY, WARMUP, DURATION);
+		List<LoadDriver.Result> results = new ArrayList<>();
+
+		results.add(driver.run("POST /files/upload", () ->
+				upload(List.of(new FilePart("document.pdf", "application/pdf", document))).statusCode()));
+		results.add(driver.run("POST /files/upload-multiple", () -> upload(List.of(
+				new FilePart("a.pdf", "application/pdf", document),
+				new FilePart("b.pdf", "application/pdf", document),
+				new FilePart("c.png", "image/png", image))).statusCode()));
+		results.add(driver.run("GET /files/download/{name}", () ->
+				send(get("/api/v1/files/download/" + pick(documents))).statusCode()));
+		results.add(driver.run("GET /files/view/{name}", () ->
+				send(get("/api/v1/files/view/" + pick(images))).statusCode()));
+		results.add(driver.run("GET /files/view/{name}?width=200", () ->
+				send(get("/api/v1/files/view/" + pick(images) + "?width=200")).statusCode()));
+
+		results.add(driver.run("POST /news", () -> {
+			HttpResponse<byte[]> response = send(json("POST", "/api/v1/news", newsJson()));
+			createdNews.add(createdId(response));
+			return response.statusCode();
+		}));
+		results.add(driver.run("GET /news", () -> send(get("/api/v1/news")).statusCode()));
+		results.add(driver.run("GET /news/{id}", () -> send(get("/api/v1/news/" + pick(newsIds))).statusCode()));
+		results.add(driver.run("GET /news/search", () -> send(get("/api/v1/news/search?q=exhibition")).statusCode()));
+		results.add(driver.run("PUT /news/{id}", () ->
+				send(json("PUT", "/api/v1/news/" + pick(newsIds), newsJson())).statusCode()));
+		results.add(driver.run("DELETE /news/{id}", () -> send(delete("/api/v1/news/" + next(createdNews))).statusCode()));
+
+		results.add(driver.run("POST /faculty", () -> {
+			HttpResponse<byte[]> response = send(json("POST", "/api/v1/faculty", facultyJson()));
+			createdFaculties.add(createdId(response));
+			return response.statusCode();
+		}));
+		results.add(driver.run("GET /faculty", () -> send(get("/api/v1/faculty")).statusCode()));
+		results.add(driver.run("GET /faculty/{id}", () -> send(get("/api/v1/faculty/" + pick(facultyIds))).statusCode()));
+		results.add(driver.run("GET /faculty/autocomplete", () -> send(get("/api/v1/faculty/autocomplete?q=fa")).statusCode()));
+		results.add(driver.run("PUT /faculty/{id}", () ->
+				send(json("PUT", "/api/v1/faculty/" + pick(facultyIds), facultyJson())).statusCode()));
+		results.add(driver.run("DELETE /faculty/{id}", () ->
+				send(delete("/api/v1/faculty/" + next(createdFaculties))).statusCode()));
+
+		writeReport(results);
+		for (LoadDriver.Result result : results) {
+			assertEquals(0, result.errors(), result.name() + " returned errors");
+		}
+	}
+
+	private void writeReport(List<LoadDriver.Result> results) throws IOException {
+		Files.createDirectories(REPORT_DIRECTORY);
+		StringBuilder csv = new StringBuilder("endpoint,rate_rps,concurrency,requests,errors,throughput_rps,"
+				+ "p50_ms,p90_ms,p99_ms,p999_ms,max_ms\n");
+		for (LoadDriver.Result result : results) {
+			Histogram latencies = result.latencies();
+			csv.append(String.format("\"%s\",%d,%d,%d,%d,%.1f,%.3f,%.3f,%.3f,%.3f,%.3f%n",
+					result.name(), RATE, CONCURRENCY, result.requests(), result.errors(), result.throughput(),
+					millis(latencies.getValueAtPercentile(50)), millis(latencies.getValueAtPercentile(90)),
+					millis(latencies.getValueAtPercentile(99)), millis(latencies.getValueAtPercentile(99.9)),
+					millis(latencies.getMaxValue())));
+
+			String fileName = result.name().replaceAll("[^A-Za-z0-9]+", "-").replaceAll("^-|-$", "") + ".hgrm";
+			try (PrintStream out = new PrintStream(Files.newOutputStream(REPORT_DIRECTORY.resolve(fileName)))) {
+				latencies.outputPercentileDistribution(out, 1_000_000.0);
+			}
+		}
+
+		String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+		Files.writeString(REPORT_DIRECTORY.resolve("report-" + timestamp + ".csv"), csv);
+		Files.writeString(REPORT_DIRECTORY.resolve("latest.csv"), csv);
+		System.out.print(csv);
+	}
+
+	private static double millis(long nanos) {
+		return nanos / 1_000_000.0;
+	}
+
+	private HttpResponse<byte[]> upload(List<FilePart> files) throws IOException, InterruptedException {
+		String path = files.size() == 1 ? "/api/v1/files/upload" : "/api/v1/files/upload-multiple";
+		String fieldName = files.size() == 1 ? "file" : "files";
+
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		for (FilePart file : files) {
+			body.writeBytes(("--" + BOUNDARY + "\r\n"
+					+ "Content-Disposition: form-data; name=\"" + fieldName + "\"; filename=\"" + file.name() + "\"\r\n"
+					+ "Content-Type: " + file.contentType() + "\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+			body.writeBytes(file.content());
+			body.writeBytes("\r\n".getBytes(StandardCharsets.UTF_8));
+		}
+		body.writeBytes(("--" + BOUNDARY + "\r\n"
+				+ "Content-Disposition: form-data; name=\"category\"\r\n\r\nLOAD_TEST\r\n"
+				+ "--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.UTF_8));
+
+		return send(HttpRequest.newBuilder(uri(path))
+				.header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+				.POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()))
+				.build());
+	}
+
+	private HttpResponse<byte[]> send(HttpRequest request) throws IOException, InterruptedException {
+		return client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+	}
+
+	private HttpRequest get(String path) {
+		return HttpRequest.newBuilder(uri(path)).header("Accept-Encoding", "gzip").GET().build();
+	}
+
+	private HttpRequest delete(String path) {
+		return HttpRequest.newBuilder(uri(path)).DELETE().build();
+	}
+
+	private HttpRequest json(String method, String path, Map<String, String> body) throws IOException {
+		return HttpRequest.newBuilder(uri(path))
+				.header("Content-Type", "application/json")
+				.method(method, HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+				.build();
+	}
+
+	private URI uri(String path) {
+		return URI.create("http://localhost:" + port + path);
+	}
+
+	private String uploadedName(HttpResponse<byte[]> response) throws IOException {
+		assertEquals(201, response.statusCode());
+		return objectMapper.readTree(response.body()).get("storedFileName").asText();
+	}
+
+	private Long createdId(HttpResponse<byte[]> response) throws IOException {
+		JsonNode body = objectMapper.readTree(response.body());
+		return body.get("id").asLong();
+	}
+
+	private Map<String, String> newsJson() {
+		int number = sequence.incrementAndGet();
+		return Map.of(
+				"title", "Annual exhibition " + number,
+				"author", "Faculty of Fine Arts",
+				"content", "The exhibition opens with works by students of painting, sculpture and ceramics. ".repeat(40));
+	}
+
+	private Map<String, String> facultyJson() {
+		int number = sequence.incrementAndGet();
+		return Map.of(
+				"name", "Faculty of Fine Arts " + number,
+				"nameKh", "មហាវិទ្យាល័យវិចិត្រសិល្បៈ " + number,
+				"email", "faculty" + number + "@ppua.edu.kh",
+				"phone", "023 000 " + number);
+	}
+
+	private static <T> T pick(List<T> values) {
+		return values.get(ThreadLocalRandom.current().nextInt(values.size()));
+	}
+
+	// Deletes take ids created earlier in the run; deleting a missing id still exercises the endpoint
+	private static Long next(Queue<Long> ids) {
+		Long id = ids.poll();
+		return id != null ? id : Long.MAX_VALUE;
+	}
+
+	private static byte[] randomBytes(int size) {
+		byte[] bytes = new byte[size];
+		new Random(42).nextBytes(bytes);
+		return bytes;
+	}
+
+	private static byte[] pngImage(int width, int height) throws IOException {
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		Graphics2D graphics = image.createGraphics();
+		graphics.setPaint(new GradientPaint(0, 0, Color.ORANGE, width, height, Color.BLUE));
+		graphics.fillRect(0, 0, width, height);
+		graphics.dispose();
+
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		ImageIO.write(image, "png", output);
+		return output.toByteArray();
+	}
+
+	private record FilePart(String name, String contentType, byte[] content) {
+	}
+}
@@ -0,0 +1,91 @@
+package kh.edu.ppua.api.load;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-model load generator: requests are started at a fixed arrival rate on a bounded pool of
+ * workers, whether or not earlier requests have finished.
+ * <p>
+ * Latency is measured from the moment a request was scheduled to start, not from when a worker
+ * picked it up, so time spent queueing behind a slow server is included (no coordinated omission).
+ */
+class LoadDriver {
+
+	interface Operation {
+		// Returns the HTTP status of the request
+		int call() throws Exception;
+	}
+
+	record Result(String name, long requests, long errors, double throughput, Histogram latencies) {
+	}
+
+	private final int ratePerSecond;
+	private final int concurrency;
+	private final Duration warmup;
+	private final Duration duration;
+
+	LoadDriver(int ratePerSecond, int concurrency, Duration warmup, Duration duration) {
+		this.ratePerSecond = ratePerSecond;
+		this.concurrency = concurrency;
+		this.warmup = warmup;
+		this.duration = duration;
+	}
+
+	Result run(String name, Operation operation) throws InterruptedException {
+		// Latencies in nanoseconds, up to one minute, with three significant digits
+		Recorder recorder = new Recorder(TimeUnit.MINUTES.toNanos(1), 3);
+		AtomicLong requests = new AtomicLong();
+		AtomicLong errors = new AtomicLong();
+
+		drive(operation, warmup, recorder, new AtomicLong(), new AtomicLong());
+		recorder.reset();
+
+		long start = System.nanoTime();
+		drive(operation, duration, recorder, requests, errors);
+		double seconds = (System.nanoTime() - start) / 1e9;
+
+		return new Result(name, requests.get(), errors.get(), requests.get() / seconds, recorder.getIntervalHistogram());
+	}
+
+	private void drive(Operation operation, Duration period, Recorder recorder,
+					   AtomicLong requests, AtomicLong errors) throws InterruptedException {
+		ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+		long interval = TimeUnit.SECONDS.toNanos(1) / ratePerSecond;
+		long start = System.nanoTime();
+		long end = start + period.toNanos();
+
+		for (long scheduled = start; scheduled < end; scheduled += interval) {
+			long wait = scheduled - System.nanoTime();
+			if (wait > 0) {
+				LockSupport.parkNanos(wait);
+			}
+			long intendedStart = scheduled;
+			workers.execute(() -> {
+				boolean failed;
+				try {
+					failed = operation.call() >= 400;
+				} catch (Exception ex) {
+					failed = true;
+				}
+				recorder.recordValue(Math.min(System.nanoTime() - intendedStart, TimeUnit.MINUTES.toNanos(1)));
+				requests.incrementAndGet();
+				if (failed) {
+					errors.incrementAndGet();
+				}
+			});
+		}
+
+		workers.shutdown();
+		if (!workers.awaitTermination(1, TimeUnit.MINUTES)) {
+			workers.shutdownNow();
+		}
+	}
+}
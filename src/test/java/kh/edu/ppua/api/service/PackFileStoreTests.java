@@ -0,0 +1,186 @@
+package kh.edu.ppua.api.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import kh.edu.ppua.api.exception.FileStorageException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PackFileStoreTests {
+
+	// Small segments, so a few files already fill several of them
+	private static final long SEGMENT_SIZE = 4096;
+
+	@TempDir
+	Path uploadDir;
+
+	private final List<PackFileStore> stores = new ArrayList<>();
+
+	@AfterEach
+	void closeStores() {
+		stores.forEach(PackFileStore::close);
+	}
+
+	@Test
+	void readsAppendedFilesBackFromSealedAndActiveSegments() throws IOException {
+		PackFileStore store = open();
+		List<byte[]> files = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			files.add(data(i, 300 + i * 10));
+			assertEquals("packs/file-" + i, store.append("file-" + i, files.get(i)));
+		}
+
+		assertTrue(segmentFiles().size() > 1);
+		for (int i = 0; i < files.size(); i++) {
+			assertArrayEquals(files.get(i), read(store, "file-" + i));
+			// Delivery serves the located region of the segment file
+			assertArrayEquals(files.get(i), readRegion(store.locate("packs/file-" + i)));
+		}
+	}
+
+	@Test
+	void deletedFilesStayDeletedAfterReopening() throws IOException {
+		PackFileStore store = open();
+		store.append("kept", data(1, 100));
+		store.append("deleted", data(2, 100));
+
+		store.delete("packs/deleted");
+
+		assertThrows(FileStorageException.class, () -> store.locate("packs/deleted"));
+		store.close();
+
+		PackFileStore reopened = open();
+		assertThrows(FileStorageException.class, () -> reopened.locate("packs/deleted"));
+		assertArrayEquals(data(1, 100), read(reopened, "kept"));
+	}
+
+	@Test
+	void compactionKeepsLiveFilesAndRemovesDeletedOnes() throws IOException {
+		PackFileStore store = open();
+		for (int i = 0; i < 40; i++) {
+			store.append("file-" + i, data(i, 500));
+		}
+		for (int i = 0; i < 40; i++) {
+			if (i % 4 != 0) {
+				store.delete("packs/file-" + i);
+			}
+		}
+		long sizeBeforeCompaction = packSize();
+
+		// The first run copies the live files, the second removes the compacted segments
+		store.compact();
+		assertLiveFiles(store);
+		store.compact();
+		assertLiveFiles(store);
+		assertTrue(packSize() < sizeBeforeCompaction);
+
+		// Once the segments that held deleted files are gone, their tombstones are not copied again
+		for (int i = 0; i < 4; i++) {
+			store.compact();
+		}
+		long settledSize = packSize();
+		for (int i = 0; i < 4; i++) {
+			store.compact();
+		}
+		assertTrue(packSize() <= settledSize);
+		store.close();
+
+		PackFileStore reopened = open();
+		assertLiveFiles(reopened);
+	}
+
+	@Test
+	void reopeningTruncatesATornTailRecord() throws IOException {
+		PackFileStore store = open();
+		store.append("complete", data(1, 200));
+		store.append("torn", data(2, 200));
+		store.close();
+
+		Path segment = segmentFiles().get(segmentFiles().size() - 1);
+		long tornSize = Files.size(segment) - 50;
+		try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+			channel.truncate(tornSize);
+		}
+
+		PackFileStore reopened = open();
+		assertArrayEquals(data(1, 200), read(reopened, "complete"));
+		assertThrows(FileStorageException.class, () -> reopened.locate("packs/torn"));
+		assertTrue(Files.size(segment) < tornSize);
+
+		// New records follow the last complete one and survive another restart
+		reopened.append("after", data(3, 200));
+		reopened.close();
+
+		PackFileStore restarted = open();
+		assertArrayEquals(data(1, 200), read(restarted, "complete"));
+		assertArrayEquals(data(3, 200), read(restarted, "after"));
+	}
+
+	private void assertLiveFiles(PackFileStore store) throws IOException {
+		for (int i = 0; i < 40; i++) {
+			String name = "file-" + i;
+			if (i % 4 == 0) {
+				assertArrayEquals(data(i, 500), read(store, name));
+			} else {
+				assertThrows(FileStorageException.class, () -> store.locate("packs/" + name));
+			}
+		}
+	}
+
+	private PackFileStore open() {
+		PackFileStore store = new PackFileStore(uploadDir.toString(), true, 65536, SEGMENT_SIZE, 0.5,
+				new SimpleMeterRegistry());
+		stores.add(store);
+		return store;
+	}
+
+	private static byte[] data(int seed, int length) {
+		byte[] data = new byte[length];
+		new Random(seed).nextBytes(data);
+		return data;
+	}
+
+	private static byte[] read(PackFileStore store, String storedFileName) throws IOException {
+		try (InputStream inputStream = store.openStream(storedFileName)) {
+			return inputStream.readAllBytes();
+		}
+	}
+
+	private static byte[] readRegion(StoredContent content) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate((int) content.length());
+		try (FileChannel channel = FileChannel.open(content.path(), StandardOpenOption.READ)) {
+			while (buffer.hasRemaining()) {
+				channel.read(buffer, content.offset() + buffer.position());
+			}
+		}
+		return buffer.array();
+	}
+
+	private List<Path> segmentFiles() throws IOException {
+		try (Stream<Path> files = Files.list(uploadDir.resolve("packs"))) {
+			return files.sorted().toList();
+		}
+	}
+
+	private long packSize() throws IOException {
+		long size = 0;
+		for (Path segment : segmentFiles()) {
+			size += Files.size(segment);
+		}
+		return size;
+	}
+}
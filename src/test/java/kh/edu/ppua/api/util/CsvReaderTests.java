@@ -0,0 +1,45 @@
+package kh.edu.ppua.api.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvReaderTests {
+
+	@Test
+	void readsRecordsWithBothLineEndings() throws IOException {
+		CsvReader reader = new CsvReader(new StringReader("name,email\r\nDara,dara@ppua.edu.kh\nSokha,\n"));
+
+		assertEquals(List.of("name", "email"), reader.readRecord());
+		assertEquals(List.of("Dara", "dara@ppua.edu.kh"), reader.readRecord());
+		assertEquals(List.of("Sokha", ""), reader.readRecord());
+		assertNull(reader.readRecord());
+	}
+
+	@Test
+	void readsQuotedFieldsWithCommasQuotesAndLineBreaks() throws IOException {
+		CsvReader reader = new CsvReader(new StringReader("\"Exhibition, 2025\",\"She said \"\"hello\"\"\",\"line one\nline two\""));
+
+		assertEquals(List.of("Exhibition, 2025", "She said \"hello\"", "line one\nline two"), reader.readRecord());
+		assertNull(reader.readRecord());
+	}
+
+	@Test
+	void skipsByteOrderMarkAndKeepsKhmerText() throws IOException {
+		CsvReader reader = new CsvReader(new StringReader("\uFEFFnameKh\nសិល្បៈ"));
+
+		assertEquals(List.of("nameKh"), reader.readRecord());
+		assertEquals(List.of("សិល្បៈ"), reader.readRecord());
+	}
+
+	@Test
+	void rejectsUnterminatedQuotedField() {
+		CsvReader reader = new CsvReader(new StringReader("\"never closed"));
+
+		assertThrows(IOException.class, reader::readRecord);
+	}
+}
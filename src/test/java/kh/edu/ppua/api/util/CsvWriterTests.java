@@ -0,0 +1,38 @@
+package kh.edu.ppua.api.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvWriterTests {
+
+	@Test
+	void quotesOnlyFieldsThatNeedIt() throws IOException {
+		StringWriter out = new StringWriter();
+		CsvWriter writer = new CsvWriter(out);
+
+		writer.writeRecord(1L, "Exhibition, 2025", null, "plain");
+
+		assertEquals("1,\"Exhibition, 2025\",,plain\r\n", out.toString());
+	}
+
+	@Test
+	void writesRecordsThatCsvReaderReadsBack() throws IOException {
+		StringWriter out = new StringWriter();
+		CsvWriter writer = new CsvWriter(out);
+		writer.writeRecord("title", "content");
+		writer.writeRecord("She said \"hello\"", "line one\nline two");
+		writer.writeRecord("សិល្បៈ", "");
+
+		CsvReader reader = new CsvReader(new StringReader(out.toString()));
+		assertEquals(List.of("title", "content"), reader.readRecord());
+		assertEquals(List.of("She said \"hello\"", "line one\nline two"), reader.readRecord());
+		assertEquals(List.of("សិល្បៈ", ""), reader.readRecord());
+		assertNull(reader.readRecord());
+	}
+}
@@ -0,0 +1,116 @@
+package kh.edu.ppua.api.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MultipartStreamReaderTests {
+
+	private static final String BOUNDARY = "----ppuaBoundary7MA4YWxk";
+
+	@Test
+	void readsFieldsAndFileAcrossSmallReads() throws IOException {
+		byte[] payload = new byte[100_000];
+		new Random(42).nextBytes(payload);
+		// A partial delimiter inside the content must not end the part
+		byte[] partialDelimiter = ("\r\n--" + BOUNDARY.substring(0, 10)).getBytes(StandardCharsets.US_ASCII);
+		System.arraycopy(partialDelimiter, 0, payload, 500, partialDelimiter.length);
+
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		body.write(("--" + BOUNDARY + "\r\n"
+				+ "Content-Disposition: form-data; name=\"description\"\r\n\r\n"
+				+ "រូបភាព cover\r\n"
+				+ "--" + BOUNDARY + "\r\n"
+				+ "Content-Disposition: form-data; name=\"file\"; filename=\"C:\\\\photos\\\\cover.jpg\"\r\n"
+				+ "Content-Type: image/jpeg\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+		body.write(payload);
+		body.write(("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+
+		MultipartStreamReader reader = new MultipartStreamReader(new TrickleInputStream(body.toByteArray(), 7), BOUNDARY);
+
+		MultipartStreamReader.Part field = reader.nextPart();
+		assertEquals("description", field.getName());
+		assertFalse(field.isFile());
+		assertEquals("រូបភាព cover", field.readString(1024));
+
+		MultipartStreamReader.Part file = reader.nextPart();
+		assertEquals("file", file.getName());
+		assertEquals("cover.jpg", file.getFileName());
+		assertEquals("image/jpeg", file.getContentType());
+		assertArrayEquals(payload, file.getInputStream().readAllBytes());
+
+		assertNull(reader.nextPart());
+	}
+
+	@Test
+	void skipsUnreadParts() throws IOException {
+		String body = "--" + BOUNDARY + "\r\n"
+				+ "Content-Disposition: form-data; name=\"first\"\r\n\r\n"
+				+ "ignored\r\n"
+				+ "--" + BOUNDARY + "\r\n"
+				+ "Content-Disposition: form-data; name=\"second\"\r\n\r\n"
+				+ "kept\r\n"
+				+ "--" + BOUNDARY + "--";
+
+		MultipartStreamReader reader = new MultipartStreamReader(
+				new ByteArrayInputStream(body.getBytes(StandardCharsets.US_ASCII)), BOUNDARY);
+
+		assertEquals("first", reader.nextPart().getName());
+		assertEquals("kept", reader.nextPart().readString(16));
+		assertNull(reader.nextPart());
+	}
+
+	@Test
+	void failsOnTruncatedBody() {
+		String body = "--" + BOUNDARY + "\r\n"
+				+ "Content-Disposition: form-data; name=\"file\"; filename=\"a.pdf\"\r\n\r\n"
+				+ "incomplete";
+
+		MultipartStreamReader reader = new MultipartStreamReader(
+				new ByteArrayInputStream(body.getBytes(StandardCharsets.US_ASCII)), BOUNDARY);
+
+		assertThrows(IOException.class, () -> reader.nextPart().getInputStream().readAllBytes());
+	}
+
+	@Test
+	void extractsBoundaryFromContentType() {
+		assertEquals("abc", MultipartStreamReader.extractBoundary("multipart/form-data; boundary=abc"));
+		assertEquals("a;b", MultipartStreamReader.extractBoundary("multipart/form-data; charset=UTF-8; boundary=\"a;b\""));
+		assertNull(MultipartStreamReader.extractBoundary("multipart/form-data"));
+	}
+
+	private static final class TrickleInputStream extends InputStream {
+
+		private final byte[] data;
+		private final int chunkSize;
+		private int position;
+
+		TrickleInputStream(byte[] data, int chunkSize) {
+			this.data = data;
+			this.chunkSize = chunkSize;
+		}
+
+		@Override
+		public int read() {
+			return position < data.length ? data[position++] & 0xFF : -1;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) {
+			if (position >= data.length) {
+				return -1;
+			}
+			int count = Math.min(Math.min(len, chunkSize), data.length - position);
+			System.arraycopy(data, position, b, off, count);
+			position += count;
+			return count;
+		}
+	}
+}
@@ -0,0 +1,34 @@
+package kh.edu.ppua.api.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchTokenizerTests {
+
+	@Test
+	void splitsLatinTextIntoLowerCaseWords() {
+		assertEquals(List.of("hello", "world", "art", "2025"), SearchTokenizer.tokenize("Hello, World! Art-2025"));
+	}
+
+	@Test
+	void splitsKhmerRunsIntoBigrams() {
+		// Zero-width space and the Khmer full stop both end a run
+		List<String> tokens = SearchTokenizer.tokenize("សិល្បៈ​កម្ពុជា។ PPUA");
+
+		assertEquals(List.of("សិ", "ិល", "ល្", "្ប", "បៈ", "កម", "ម្", "្ព", "ពុ", "ុជ", "ជា", "ppua"), tokens);
+	}
+
+	@Test
+	void keepsSingleKhmerCharacter() {
+		assertEquals(List.of("ក"), SearchTokenizer.tokenize("ក"));
+	}
+
+	@Test
+	void returnsNoTokensForEmptyText() {
+		assertTrue(SearchTokenizer.tokenize(null).isEmpty());
+		assertTrue(SearchTokenizer.tokenize(" \t ").isEmpty());
+	}
+}